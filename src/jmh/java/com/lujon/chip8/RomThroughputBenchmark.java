@@ -0,0 +1,68 @@
+package com.lujon.chip8;
+
+import com.lujon.chip8.cpu.Dispatch;
+import com.lujon.chip8.memory.Memory;
+import com.lujon.chip8.screen.Screen;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Whole-ROM throughput of the bundled ROMs, in instructions per second. Every iteration starts the
+ * ROM from the beginning, so the start-up code and the final loop are both measured.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RomThroughputBenchmark {
+
+  private static final int INSTRUCTIONS_PER_INVOCATION = 10_000;
+
+  @Param({"bc_test.ch8", "test_opcode.ch8", "ibm-logo.ch8"})
+  public String rom;
+
+  @Param({"SWITCH", "TABLE", "BLOCKS"})
+  public String engine;
+
+  private byte[] romData;
+  private Chip8Emulator chip8Emulator;
+
+  @Setup
+  public void loadRom() throws IOException {
+    InputStream romStream = Memory.class.getClassLoader().getResourceAsStream(rom);
+    romData = Objects.requireNonNull(Objects.requireNonNull(romStream).readAllBytes());
+  }
+
+  @Setup(Level.Iteration)
+  public void startRom() {
+    Memory memory = new Memory();
+    memory.init(romData);
+
+    boolean useBlockEngine = engine.equals("BLOCKS");
+    Dispatch dispatch = engine.equals("TABLE") ? Dispatch.TABLE : Dispatch.SWITCH;
+    chip8Emulator = new Chip8Emulator(memory, new Screen(false), useBlockEngine, dispatch);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(INSTRUCTIONS_PER_INVOCATION)
+  public void run() {
+    chip8Emulator.runFixedCycles(INSTRUCTIONS_PER_INVOCATION);
+  }
+}
@@ -0,0 +1,68 @@
+package com.lujon.chip8.cpu;
+
+import com.lujon.chip8.memory.Memory;
+import com.lujon.chip8.screen.Screen;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of the interpreter and the block engine on a loop of register arithmetic, index
+ * updates and a skip, in instructions per second. Unlike the bundled ROMs, which spend most of
+ * their time in a final jump to themselves, this is the kind of code game logic runs.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BlockEngineBenchmark {
+
+  private static final int INSTRUCTIONS_PER_INVOCATION = 10_000;
+
+  private static final byte[] PROGRAM = {
+      0x60, 0x00, // 200: LD V0, 0
+      0x61, 0x01, // 202: LD V1, 1
+      0x62, 0x00, // 204: LD V2, 0
+      0x70, 0x01, // 206: ADD V0, 1
+      (byte) 0x82, 0x14, // 208: ADD V2, V1
+      (byte) 0x83, 0x03, // 20A: XOR V3, V0
+      (byte) 0x84, 0x06, // 20C: SHR V4
+      (byte) 0x85, 0x32, // 20E: AND V5, V3
+      (byte) 0xA3, 0x00, // 210: LD I, 300
+      (byte) 0xF0, 0x1E, // 212: ADD I, V0
+      0x30, 0x00, // 214: SE V0, 0
+      0x12, 0x06, // 216: JP 206
+      0x12, 0x06 // 218: JP 206
+  };
+
+  @Param({"INTERPRETER", "BLOCKS"})
+  public String engine;
+
+  private ExecutionEngine executionEngine;
+
+  @Setup
+  public void setUp() {
+    Memory memory = new Memory();
+    memory.init(PROGRAM);
+    CPU cpu = new CPU(memory, new Screen(false));
+    executionEngine = engine.equals("BLOCKS") ? new BlockEngine(cpu, memory) : cpu;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(INSTRUCTIONS_PER_INVOCATION)
+  public void run() {
+    executionEngine.execute(INSTRUCTIONS_PER_INVOCATION);
+  }
+}
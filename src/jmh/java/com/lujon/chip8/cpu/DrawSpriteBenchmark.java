@@ -0,0 +1,63 @@
+package com.lujon.chip8.cpu;
+
+import com.lujon.chip8.memory.Memory;
+import com.lujon.chip8.screen.Screen;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Dxyn at different sprite heights and positions. A sprite at x = 60 is clipped on the right and
+ * one at y = 28 loses the rows below the screen.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DrawSpriteBenchmark {
+
+  @Param({"1", "5", "15"})
+  public int height;
+
+  @Param({"0", "13", "60"})
+  public int x;
+
+  @Param({"0", "28"})
+  public int y;
+
+  private CPU cpu;
+
+  @Setup
+  public void setUp() {
+    byte[] sprite = new byte[15];
+    for (int i = 0; i < sprite.length; i++) {
+      sprite[i] = (byte) (0xA5 ^ i);
+    }
+
+    Memory memory = new Memory();
+    memory.init(sprite);
+    cpu = new CPU(memory, new Screen(false));
+
+    cpu.setRegister(0, x);
+    cpu.setRegister(1, y);
+    cpu.setIndexRegister(CPU.INITIAL_PC);
+  }
+
+  @Benchmark
+  public int drawSprite() {
+    // Drawing twice in a row XORs the sprite away again, so alternate invocations collide
+    cpu.drawSprite(0, 1, height);
+    return cpu.getRegister(0xF);
+  }
+}
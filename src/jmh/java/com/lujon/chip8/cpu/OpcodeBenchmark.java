@@ -0,0 +1,71 @@
+package com.lujon.chip8.cpu;
+
+import com.lujon.chip8.memory.Memory;
+import com.lujon.chip8.screen.Screen;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of a single decoded instruction through {@link CPU#executeInstruction}, one representative
+ * per opcode group. Fetching and decoding are not included.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OpcodeBenchmark {
+
+  @Param({"00E0", "1200", "3012", "4012", "5010", "6012", "7001", "8010", "8011", "8012", "8013",
+      "8014", "8015", "8016", "8017", "801E", "9010", "A300", "B200", "C0FF", "D015", "F007",
+      "F015", "F01E", "F029", "F033", "F055", "F065"})
+  public String instruction;
+
+  @Param({"SWITCH", "TABLE"})
+  public Dispatch dispatch;
+
+  private CPU cpu;
+  private Instruction decodedInstruction;
+  private Instruction call;
+  private Instruction ret;
+
+  @Setup
+  public void setUp() {
+    Memory memory = new Memory();
+    memory.init(new byte[0]);
+    cpu = new CPU(memory, new Screen(false), new RandomNumberGenerator(0), dispatch);
+
+    // Keep the index register away from the program and the font
+    cpu.executeInstruction(new Instruction(0xA300));
+    cpu.executeInstruction(new Instruction(0x6105));
+
+    decodedInstruction = new Instruction(Integer.parseInt(instruction, 16));
+    call = new Instruction(0x2300);
+    ret = new Instruction(0x00EE);
+  }
+
+  @Benchmark
+  public void executeInstruction() {
+    cpu.executeInstruction(decodedInstruction);
+  }
+
+  /**
+   * 2nnn and 00EE only make sense in pairs, otherwise the stack overflows or underflows.
+   */
+  @Benchmark
+  public void callAndReturn() {
+    cpu.executeInstruction(call);
+    cpu.executeInstruction(ret);
+  }
+}
@@ -0,0 +1,45 @@
+package com.lujon.chip8.screen;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link Screen#draw()} with a varying number of dirty rows. This opens a window, so it needs a
+ * display.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ScreenDrawBenchmark {
+
+  @Param({"0", "1", "8", "32"})
+  public int dirtyRows;
+
+  private Screen screen;
+
+  @Setup
+  public void setUp() {
+    screen = new Screen(true);
+  }
+
+  @Benchmark
+  public void draw() {
+    for (int y = 0; y < dirtyRows; y++) {
+      screen.drawSpriteRow(y, y, (byte) 0xFF);
+    }
+    screen.draw();
+  }
+}
@@ -1,40 +1,409 @@
 package com.lujon.chip8;
 
+import com.lujon.chip8.cpu.BlockEngine;
 import com.lujon.chip8.cpu.CPU;
+import com.lujon.chip8.cpu.DebugBreak;
+import com.lujon.chip8.cpu.Debugger;
+import com.lujon.chip8.cpu.DecodedProgram;
+import com.lujon.chip8.cpu.Dispatch;
+import com.lujon.chip8.cpu.ExecutionEngine;
+import com.lujon.chip8.cpu.IdleLoopDetector;
+import com.lujon.chip8.cpu.InstrumentedEngine;
+import com.lujon.chip8.cpu.ProfilingEngine;
+import com.lujon.chip8.cpu.RandomNumberGenerator;
 import com.lujon.chip8.memory.Memory;
+import com.lujon.chip8.metrics.ExecutionMetrics;
+import com.lujon.chip8.profiler.Profile;
+import com.lujon.chip8.profiler.SamplingProfiler;
 import com.lujon.chip8.screen.Screen;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 
 public class Chip8Emulator {
 
+  public static final int DEFAULT_INSTRUCTIONS_PER_FRAME = 10;
+  private static final int MAX_CATCH_UP_FRAMES = 5;
+  private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  private final Memory memory;
   private final CPU cpu;
+  private final ExecutionEngine uninstrumentedEngine;
   private final Screen screen;
+  private final IdleLoopDetector idleLoopDetector;
+  private ExecutionEngine engine;
+  private boolean skipIdleLoops;
+  // Created when first asked for
+  private Debugger debugger;
+  // Null unless metrics are enabled
+  private ExecutionMetrics metrics;
 
   public Chip8Emulator(Memory memory, Screen screen) {
+    this(memory, screen, false);
+  }
+
+  public Chip8Emulator(Memory memory, Screen screen, RandomNumberGenerator randomNumberGenerator) {
+    this(memory, screen, randomNumberGenerator, false, Dispatch.SWITCH);
+  }
+
+  public Chip8Emulator(Memory memory, Screen screen, boolean useBlockEngine) {
+    this(memory, screen, useBlockEngine, Dispatch.SWITCH);
+  }
+
+  public Chip8Emulator(Memory memory, Screen screen, boolean useBlockEngine, Dispatch dispatch) {
+    this(memory, screen, new RandomNumberGenerator(), useBlockEngine, dispatch);
+  }
+
+  public Chip8Emulator(Memory memory, Screen screen, RandomNumberGenerator randomNumberGenerator,
+      boolean useBlockEngine, Dispatch dispatch) {
+    this.memory = memory;
     this.screen = screen;
-    this.cpu = new CPU(memory, screen);
+    this.cpu = new CPU(memory, screen, randomNumberGenerator, dispatch);
+    this.uninstrumentedEngine = useBlockEngine ? new BlockEngine(cpu, memory) : cpu;
+    this.engine = uninstrumentedEngine;
+    this.idleLoopDetector = new IdleLoopDetector(cpu);
   }
 
   public void run() throws InterruptedException {
-    int numCycles = 0;
+    run(DEFAULT_INSTRUCTIONS_PER_FRAME);
+  }
+
+  /**
+   * Runs the emulator in real time at 60 frames per second, executing the given number of
+   * instructions and ticking the timers once per frame. The screen is drawn at most once per
+   * host frame, and only if it changed.
+   */
+  public void run(int instructionsPerFrame) throws InterruptedException {
+    run(instructionsPerFrame, null);
+  }
+
+  /**
+   * Like {@link #run(int)}, and writes every frame to the session recorder if one is given. The
+   * emulator must have been created with a random number generator seeded with the seed given to
+   * the recorder.
+   *
+   * @throws UncheckedIOException if the session log cannot be written
+   */
+  public void run(int instructionsPerFrame, SessionRecorder sessionRecorder)
+      throws InterruptedException {
+    FrameScheduler frameScheduler = new FrameScheduler(MAX_CATCH_UP_FRAMES);
+
     while (true) {
-      cpu.executeInstructionFromMemory();
-      numCycles += 1;
-      if (numCycles == 10) {
-        screen.draw();
-        numCycles = 0;
+      int numFrames = frameScheduler.awaitFrames();
+
+      FramesEvent framesEvent = new FramesEvent();
+      framesEvent.begin();
+      long numSpriteDraws = cpu.getNumSpriteDraws();
+      long numSpriteCollisions = cpu.getNumSpriteCollisions();
+
+      for (int i = 0; i < numFrames; i++) {
+        runFrame(instructionsPerFrame);
+        if (sessionRecorder != null) {
+          recordFrame(sessionRecorder);
+        }
+      }
+
+      framesEvent.end();
+      if (framesEvent.shouldCommit()) {
+        framesEvent.numFrames = numFrames;
+        framesEvent.numInstructions = (long) numFrames * instructionsPerFrame;
+        framesEvent.commit();
+      }
+      commitSpriteDrawsEvent(numSpriteDraws, numSpriteCollisions);
+
+      if (screen.isDirty()) {
+        drawScreen();
       }
-      Thread.sleep(10);
     }
   }
 
+  private void commitSpriteDrawsEvent(long numSpriteDrawsBefore, long numSpriteCollisionsBefore) {
+    SpriteDrawsEvent event = new SpriteDrawsEvent();
+    long numDraws = cpu.getNumSpriteDraws() - numSpriteDrawsBefore;
+    if (numDraws > 0 && event.shouldCommit()) {
+      event.numDraws = numDraws;
+      event.numCollisions = cpu.getNumSpriteCollisions() - numSpriteCollisionsBefore;
+      event.commit();
+    }
+  }
+
+  private void drawScreen() {
+    // Drawing clears the dirty rows, so they are read first
+    int firstRow = screen.getDirtyRowStart();
+    int endRow = screen.getDirtyRowEnd();
+    ScreenPresentEvent event = new ScreenPresentEvent();
+    event.begin();
+
+    if (metrics == null) {
+      screen.draw();
+    } else {
+      long start = System.nanoTime();
+      screen.draw();
+      metrics.recordScreenDraw(System.nanoTime() - start);
+    }
+
+    event.end();
+    if (event.shouldCommit()) {
+      event.firstRow = firstRow;
+      event.endRow = endRow;
+      event.commit();
+    }
+  }
+
+  public void runFrame(int instructionsPerFrame) {
+    execute(instructionsPerFrame);
+
+    // Time stands still while the debugger is paused
+    if (debugger == null || !debugger.isPaused()) {
+      endFrame();
+    }
+  }
+
+  private int execute(int numInstructions) {
+    // A debugger left paused after its last breakpoint or condition is gone still holds execution
+    if (debugger != null && (debugger.isArmed() || debugger.isPaused())) {
+      return debugger.execute(numInstructions);
+    }
+
+    int numFastForwarded = skipIdleLoops ? idleLoopDetector.fastForward(numInstructions) : 0;
+    engine.execute(numInstructions - numFastForwarded);
+    return numInstructions;
+  }
+
+  /**
+   * Whether frames that start in a loop waiting for the next timer tick skip the rest of their
+   * instructions instead of executing them. The emulated machine ends up in the same state either
+   * way, but waiting programs use next to no host CPU. Skipped instructions are not seen by
+   * metrics or the profiler.
+   */
+  public void setSkipIdleLoops(boolean skipIdleLoops) {
+    this.skipIdleLoops = skipIdleLoops;
+  }
+
+  private void endFrame() {
+    cpu.tickTimers();
+    if (metrics != null) {
+      metrics.recordFrame();
+    }
+  }
+
+  private void recordFrame(SessionRecorder sessionRecorder) {
+    try {
+      sessionRecorder.recordFrame(1, getStateDigest());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  void tickTimers() {
+    cpu.tickTimers();
+  }
+
+  /**
+   * Runs as fast as the host allows without drawing or sleeping until the stop condition is met.
+   * Frames still tick the timers every given number of instructions, so programs behave as they
+   * would in real time. Meant to be used with a screen that is not displayed.
+   */
+  public RunReport runHeadless(int instructionsPerFrame, StopCondition stopCondition) {
+    long startTime = System.nanoTime();
+    long numInstructions = 0;
+    long numFrames = 0;
+
+    while (numFrames < stopCondition.getMaxFrames()) {
+      long maxInstructions = Math.min(instructionsPerFrame,
+          stopCondition.getMaxInstructions() - numInstructions);
+      long numExecuted = stopCondition.hasStopAddresses()
+          ? executeUntilStopAddress(maxInstructions, stopCondition)
+          : executeAll(maxInstructions);
+      numInstructions += numExecuted;
+
+      if (numExecuted < instructionsPerFrame) {
+        break;
+      }
+
+      endFrame();
+      numFrames++;
+
+      if (System.nanoTime() - startTime >= stopCondition.getMaxWallTimeNanos()) {
+        break;
+      }
+    }
+
+    return new RunReport(numInstructions, numFrames, System.nanoTime() - startTime);
+  }
+
+  private long executeAll(long numInstructions) {
+    return execute((int) numInstructions);
+  }
+
+  private long executeUntilStopAddress(long maxInstructions, StopCondition stopCondition) {
+    long numExecuted = 0;
+    while (numExecuted < maxInstructions
+        && !stopCondition.isStopAddress(cpu.getProgramCounter())) {
+      if (execute(1) == 0) {
+        break;
+      }
+      numExecuted++;
+    }
+    return numExecuted;
+  }
+
   public void runFixedCycles(int numCycles) {
-    while (numCycles > 0) {
-      cpu.executeInstructionFromMemory();
-      numCycles--;
+    execute(numCycles);
+  }
+
+  /**
+   * Returns the debugger of this emulator. Instructions only go through it while it has a
+   * breakpoint, watchpoint or condition set, and then bypass idle loop skipping, metrics and the
+   * profiler.
+   */
+  public Debugger getDebugger() {
+    if (debugger == null) {
+      debugger = new Debugger(cpu);
+    }
+    return debugger;
+  }
+
+  /**
+   * Resumes and runs headless until the condition holds before an instruction, another break is
+   * hit or the maximum number of instructions has been executed.
+   *
+   * @return the break execution stopped at, or null if it ran the maximum number of instructions
+   */
+  public DebugBreak runUntil(Predicate<CPU> condition, int instructionsPerFrame,
+      long maxInstructions) {
+    getDebugger().resume();
+    debugger.addCondition(condition);
+    try {
+      runHeadless(instructionsPerFrame, StopCondition.afterInstructions(maxInstructions));
+    } finally {
+      debugger.removeCondition(condition);
+    }
+    return debugger.getLastBreak();
+  }
+
+  /**
+   * Skips decoding for a ROM that has been decoded before. The program must have been decoded from
+   * the memory this emulator was created with, before it started running.
+   */
+  public void preload(DecodedProgram program) {
+    cpu.preload(program);
+  }
+
+  /**
+   * Starts counting executed instructions per opcode family and timing sprite and screen draws.
+   * While metrics are enabled, instructions are interpreted one at a time whichever engine the
+   * emulator was created with. Returns the metrics, which can be published with
+   * {@link ExecutionMetrics#register(String)}.
+   */
+  public ExecutionMetrics enableMetrics() {
+    if (engine instanceof ProfilingEngine) {
+      throw new IllegalStateException("Metrics cannot be enabled while profiling");
+    }
+    if (metrics == null) {
+      metrics = new ExecutionMetrics();
+      engine = new InstrumentedEngine(cpu, metrics);
+    }
+    return metrics;
+  }
+
+  public void disableMetrics() {
+    metrics = null;
+    engine = uninstrumentedEngine;
+  }
+
+  /**
+   * Starts counting every executed instruction by address and call stack. Like metrics, this
+   * interprets instructions one at a time whichever engine the emulator was created with, and the
+   * two cannot be used together.
+   */
+  public Profile startProfiling() {
+    if (engine != uninstrumentedEngine) {
+      throw new IllegalStateException("Already profiling or collecting metrics");
+    }
+    Profile profile = new Profile();
+    engine = new ProfilingEngine(cpu, profile);
+    return profile;
+  }
+
+  public void stopProfiling() {
+    if (engine instanceof ProfilingEngine) {
+      engine = uninstrumentedEngine;
+    }
+  }
+
+  /**
+   * Starts sampling the executing address and call stack from a background thread, leaving the
+   * engine untouched. Close the returned profiler to stop sampling, which also stops the CPU from
+   * publishing the executing address.
+   */
+  public SamplingProfiler startSampling(long interval, TimeUnit unit) {
+    return new SamplingProfiler(cpu, memory, interval, unit);
+  }
+
+  public MachineState snapshot() {
+    return new MachineState(memory.snapshot(), cpu.snapshot(), screen.copyRows());
+  }
+
+  public void restore(MachineState state) {
+    memory.restore(state.getMemory());
+    cpu.restore(state.getCpu());
+    screen.setRows(state.getScreenRows());
+  }
+
+  /**
+   * Returns an independent emulator in the same state, with a screen that is not displayed. Memory
+   * pages are shared copy-on-write, so forking is cheap until either emulator writes to memory.
+   */
+  public Chip8Emulator fork() {
+    Screen forkedScreen = new Screen(false);
+    forkedScreen.setRows(screen.copyRows());
+
+    // The seed does not matter, restoring the CPU state copies the generator state over it
+    Chip8Emulator fork = new Chip8Emulator(memory.fork(), forkedScreen,
+        new RandomNumberGenerator(0), uninstrumentedEngine instanceof BlockEngine,
+        cpu.getDispatch());
+    fork.cpu.restore(cpu.snapshot());
+
+    return fork;
+  }
+
+  /**
+   * Returns a 64-bit FNV-1a hash of the memory, CPU and screen state. Two emulators in the same
+   * state have the same digest.
+   */
+  public long getStateDigest() {
+    long hash = FNV_OFFSET_BASIS;
+
+    for (int address = 0; address < Memory.SIZE; address++) {
+      hash = (hash ^ (memory.getByte(address) & 0xFF)) * FNV_PRIME;
+    }
+    for (int register = 0; register < 16; register++) {
+      hash = (hash ^ cpu.getRegister(register)) * FNV_PRIME;
+    }
+    hash = mix(hash, cpu.getProgramCounter());
+    hash = mix(hash, cpu.getIndexRegister());
+    hash = mix(hash, cpu.getDelayTimer());
+    for (int returnAddress : cpu.getStack()) {
+      hash = mix(hash, returnAddress);
+    }
+    for (int y = 0; y < screen.getHeight(); y++) {
+      hash = mix(hash, screen.getRow(y));
+    }
+
+    return hash;
+  }
+
+  private static long mix(long hash, long value) {
+    for (int i = 0; i < 8; i++) {
+      hash = (hash ^ (value & 0xFF)) * FNV_PRIME;
+      value >>>= 8;
     }
+    return hash;
   }
 
   public static void main(String[] args) throws IOException, InterruptedException {
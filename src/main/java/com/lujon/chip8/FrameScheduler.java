@@ -0,0 +1,73 @@
+package com.lujon.chip8;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Paces emulation to a fixed frame rate. Frames are scheduled on an absolute timeline, so late
+ * wake-ups do not add up to drift. When the host falls behind, the missed frames are run back to
+ * back up to a limit; anything beyond that is dropped and the timeline restarts from now.
+ */
+public class FrameScheduler {
+
+  public static final int FRAMES_PER_SECOND = 60;
+  public static final long FRAME_INTERVAL_NANOS = 1_000_000_000L / FRAMES_PER_SECOND;
+  // Wake-ups later than this fraction of a frame are reported as stalls
+  private static final int STALL_THRESHOLD_DIVISOR = 4;
+
+  private final long frameIntervalNanos;
+  private final int maxCatchUpFrames;
+  private long nextFrameTime;
+
+  public FrameScheduler(int maxCatchUpFrames) {
+    this(FRAME_INTERVAL_NANOS, maxCatchUpFrames);
+  }
+
+  public FrameScheduler(long frameIntervalNanos, int maxCatchUpFrames) {
+    this.frameIntervalNanos = frameIntervalNanos;
+    this.maxCatchUpFrames = maxCatchUpFrames;
+    this.nextFrameTime = System.nanoTime();
+  }
+
+  /**
+   * Parks the calling thread until the next frame is due.
+   *
+   * @return the number of frames to run now, between 1 and the catch-up limit
+   */
+  public int awaitFrames() throws InterruptedException {
+    long now = System.nanoTime();
+
+    while (now < nextFrameTime) {
+      LockSupport.parkNanos(nextFrameTime - now);
+      if (Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+      now = System.nanoTime();
+    }
+
+    long latenessNanos = now - nextFrameTime;
+    long numFramesDue = latenessNanos / frameIntervalNanos + 1;
+
+    if (numFramesDue > maxCatchUpFrames) {
+      reportStall(latenessNanos, maxCatchUpFrames, numFramesDue - maxCatchUpFrames);
+      nextFrameTime = now + frameIntervalNanos;
+      return maxCatchUpFrames;
+    }
+
+    if (latenessNanos >= frameIntervalNanos / STALL_THRESHOLD_DIVISOR) {
+      reportStall(latenessNanos, (int) numFramesDue, 0);
+    }
+
+    nextFrameTime += numFramesDue * frameIntervalNanos;
+    return (int) numFramesDue;
+  }
+
+  private static void reportStall(long latenessNanos, int numFrames, long numDroppedFrames) {
+    SchedulerStallEvent event = new SchedulerStallEvent();
+    if (event.shouldCommit()) {
+      event.latenessNanos = latenessNanos;
+      event.numCatchUpFrames = numFrames - 1;
+      event.numDroppedFrames = numDroppedFrames;
+      event.commit();
+    }
+  }
+}
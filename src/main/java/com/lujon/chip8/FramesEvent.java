@@ -0,0 +1,26 @@
+package com.lujon.chip8;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The frames emulated in one pass of the real-time loop, normally one but more while catching up.
+ * One event per host frame rather than per emulated frame keeps the rate at 60 events a second.
+ */
+@Name("com.lujon.chip8.Frames")
+@Label("Emulated Frames")
+@Category("CHIP-8")
+@Description("Frames emulated in one pass of the real-time loop")
+@StackTrace(false)
+class FramesEvent extends Event {
+
+  @Label("Frames")
+  int numFrames;
+
+  @Label("Instructions")
+  long numInstructions;
+}
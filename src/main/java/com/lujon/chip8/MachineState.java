@@ -0,0 +1,59 @@
+package com.lujon.chip8;
+
+import com.lujon.chip8.cpu.CPUState;
+import com.lujon.chip8.memory.Memory;
+import com.lujon.chip8.memory.MemorySnapshot;
+import java.nio.ByteBuffer;
+
+/**
+ * Everything that makes up the state of an emulated machine at one point in time.
+ */
+public class MachineState {
+
+  private final MemorySnapshot memory;
+  private final CPUState cpu;
+  private final long[] screenRows;
+
+  MachineState(MemorySnapshot memory, CPUState cpu, long[] screenRows) {
+    this.memory = memory;
+    this.cpu = cpu;
+    this.screenRows = screenRows;
+  }
+
+  public MemorySnapshot getMemory() {
+    return memory;
+  }
+
+  public CPUState getCpu() {
+    return cpu;
+  }
+
+  /**
+   * Returns the screen rows, each with the leftmost pixel in the most significant bit.
+   */
+  public long[] getScreenRows() {
+    return screenRows.clone();
+  }
+
+  public int getSerializedSize() {
+    return Memory.SIZE + cpu.getSerializedSize() + screenRows.length * Long.BYTES;
+  }
+
+  public void writeTo(ByteBuffer buffer) {
+    memory.writeTo(buffer);
+    cpu.writeTo(buffer);
+    for (long row : screenRows) {
+      buffer.putLong(row);
+    }
+  }
+
+  public static MachineState readFrom(ByteBuffer buffer) {
+    MemorySnapshot memory = MemorySnapshot.readFrom(buffer);
+    CPUState cpu = CPUState.readFrom(buffer);
+    long[] screenRows = new long[32];
+    for (int y = 0; y < screenRows.length; y++) {
+      screenRows[y] = buffer.getLong();
+    }
+    return new MachineState(memory, cpu, screenRows);
+  }
+}
@@ -0,0 +1,61 @@
+package com.lujon.chip8;
+
+/**
+ * Outcome of replaying a session log.
+ */
+public class ReplayResult {
+
+  private final long numFrames;
+  private final long divergedFrame;
+  private final long expectedDigest;
+  private final long actualDigest;
+  private final long elapsedNanos;
+
+  ReplayResult(long numFrames, long divergedFrame, long expectedDigest, long actualDigest,
+      long elapsedNanos) {
+    this.numFrames = numFrames;
+    this.divergedFrame = divergedFrame;
+    this.expectedDigest = expectedDigest;
+    this.actualDigest = actualDigest;
+    this.elapsedNanos = elapsedNanos;
+  }
+
+  /**
+   * Returns the number of frames replayed, including a diverged frame.
+   */
+  public long getNumFrames() {
+    return numFrames;
+  }
+
+  public boolean hasDiverged() {
+    return divergedFrame >= 0;
+  }
+
+  /**
+   * Returns the index of the first frame whose state did not match the log, or -1.
+   */
+  public long getDivergedFrame() {
+    return divergedFrame;
+  }
+
+  public long getExpectedDigest() {
+    return expectedDigest;
+  }
+
+  public long getActualDigest() {
+    return actualDigest;
+  }
+
+  public long getElapsedNanos() {
+    return elapsedNanos;
+  }
+
+  @Override
+  public String toString() {
+    if (hasDiverged()) {
+      return String.format("Diverged at frame %d: expected %016x, was %016x", divergedFrame,
+          expectedDigest, actualDigest);
+    }
+    return String.format("Replayed %d frames in %.3f s", numFrames, elapsedNanos / 1e9);
+  }
+}
@@ -0,0 +1,220 @@
+package com.lujon.chip8;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Keeps the most recent machine states, one per frame, so that a session can be stepped backwards.
+ * Each frame is stored as the XOR of its serialized state with the previous frame's, with runs of
+ * unchanged bytes run-length encoded, in a ring buffer of fixed size. When the ring is full the
+ * oldest frames are dropped.
+ *
+ * <p>Only the newest state is kept in full. Rewinding applies the newest delta to it, so each step
+ * back costs about as much as recording the frame did.
+ */
+public class RewindBuffer {
+
+  private static final int LENGTH_BYTES = Integer.BYTES;
+
+  private final byte[] ring;
+  // Entries are stored from tail up to head, each as [size][payload][size]
+  private int head;
+  private int tail;
+  private int usedBytes;
+  private int numFrames;
+
+  // The newest state; bytes past its length are always zero
+  private byte[] currentImage = new byte[0];
+  private int currentLength;
+  private byte[] nextImage = new byte[0];
+  private byte[] delta = new byte[0];
+
+  /**
+   * @param memoryBudgetBytes size of the ring that holds the frames
+   */
+  public RewindBuffer(int memoryBudgetBytes) {
+    this.ring = new byte[memoryBudgetBytes];
+  }
+
+  /**
+   * Adds a frame. Frames that do not fit in the budget on their own are rejected.
+   */
+  public void record(MachineState state) {
+    int length = state.getSerializedSize();
+    int maxLength = Math.max(length, currentLength);
+
+    if (nextImage.length < maxLength) {
+      nextImage = new byte[maxLength];
+      currentImage = Arrays.copyOf(currentImage, maxLength);
+      delta = new byte[2 * maxLength + 16];
+    }
+
+    Arrays.fill(nextImage, 0, maxLength, (byte) 0);
+    state.writeTo(ByteBuffer.wrap(nextImage, 0, length));
+
+    int payloadSize = encodeDelta(maxLength);
+    int entrySize = payloadSize + 2 * LENGTH_BYTES;
+
+    if (entrySize > ring.length) {
+      throw new IllegalArgumentException(
+          "Frame of " + entrySize + " bytes does not fit in rewind budget of " + ring.length);
+    }
+
+    while (ring.length - usedBytes < entrySize) {
+      dropOldestFrame();
+    }
+
+    writeInt(head, entrySize);
+    for (int i = 0; i < payloadSize; i++) {
+      ring[wrap(head + LENGTH_BYTES + i)] = delta[i];
+    }
+    writeInt(head + LENGTH_BYTES + payloadSize, entrySize);
+    head = wrap(head + entrySize);
+    usedBytes += entrySize;
+    numFrames++;
+
+    byte[] previousImage = currentImage;
+    currentImage = nextImage;
+    nextImage = previousImage;
+    currentLength = length;
+  }
+
+  public boolean canRewind() {
+    return numFrames > 1;
+  }
+
+  /**
+   * Drops the newest frame and returns the one before it.
+   */
+  public MachineState rewind() {
+    if (!canRewind()) {
+      throw new IllegalStateException("No earlier frame to rewind to");
+    }
+
+    int entrySize = readInt(head - LENGTH_BYTES);
+    int entryStart = wrap(head - entrySize);
+
+    currentLength = decodeDelta(entryStart + LENGTH_BYTES);
+
+    head = entryStart;
+    usedBytes -= entrySize;
+    numFrames--;
+
+    return MachineState.readFrom(ByteBuffer.wrap(currentImage, 0, currentLength));
+  }
+
+  public int getNumFrames() {
+    return numFrames;
+  }
+
+  public int getUsedBytes() {
+    return usedBytes;
+  }
+
+  public int getMemoryBudgetBytes() {
+    return ring.length;
+  }
+
+  private void dropOldestFrame() {
+    int entrySize = readInt(tail);
+    tail = wrap(tail + entrySize);
+    usedBytes -= entrySize;
+    numFrames--;
+  }
+
+  /**
+   * Encodes nextImage XOR currentImage into delta as the previous length followed by pairs of
+   * (unchanged run length, changed run length, changed bytes).
+   */
+  private int encodeDelta(int maxLength) {
+    int size = writeVarInt(delta, 0, currentLength);
+    int position = 0;
+
+    while (position < maxLength) {
+      int unchangedStart = position;
+      while (position < maxLength && nextImage[position] == currentImage[position]) {
+        position++;
+      }
+      int changedStart = position;
+      while (position < maxLength && nextImage[position] != currentImage[position]) {
+        position++;
+      }
+
+      size = writeVarInt(delta, size, changedStart - unchangedStart);
+      size = writeVarInt(delta, size, position - changedStart);
+      for (int i = changedStart; i < position; i++) {
+        delta[size++] = (byte) (nextImage[i] ^ currentImage[i]);
+      }
+    }
+
+    return size;
+  }
+
+  /**
+   * Applies the delta stored at the given ring position to currentImage and returns the length of
+   * the resulting state.
+   */
+  private int decodeDelta(int position) {
+    int[] cursor = new int[] {wrap(position)};
+    int previousLength = readVarInt(cursor);
+    int maxLength = Math.max(previousLength, currentLength);
+    int imagePosition = 0;
+
+    while (imagePosition < maxLength) {
+      imagePosition += readVarInt(cursor);
+      int changedLength = readVarInt(cursor);
+      for (int i = 0; i < changedLength; i++) {
+        currentImage[imagePosition++] ^= ring[cursor[0]];
+        cursor[0] = wrap(cursor[0] + 1);
+      }
+    }
+
+    return previousLength;
+  }
+
+  private static int writeVarInt(byte[] target, int offset, int value) {
+    while ((value & ~0x7F) != 0) {
+      target[offset++] = (byte) (value & 0x7F | 0x80);
+      value >>>= 7;
+    }
+    target[offset++] = (byte) value;
+    return offset;
+  }
+
+  private int readVarInt(int[] cursor) {
+    int value = 0;
+    int shift = 0;
+    byte b;
+    do {
+      b = ring[cursor[0]];
+      cursor[0] = wrap(cursor[0] + 1);
+      value |= (b & 0x7F) << shift;
+      shift += 7;
+    } while (b < 0);
+    return value;
+  }
+
+  private void writeInt(int position, int value) {
+    for (int i = 0; i < LENGTH_BYTES; i++) {
+      ring[wrap(position + i)] = (byte) (value >>> (8 * i));
+    }
+  }
+
+  private int readInt(int position) {
+    int value = 0;
+    for (int i = 0; i < LENGTH_BYTES; i++) {
+      value |= (ring[wrap(position + i)] & 0xFF) << (8 * i);
+    }
+    return value;
+  }
+
+  private int wrap(int position) {
+    if (position >= ring.length) {
+      return position - ring.length;
+    }
+    if (position < 0) {
+      return position + ring.length;
+    }
+    return position;
+  }
+}
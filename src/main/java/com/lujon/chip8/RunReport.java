@@ -0,0 +1,50 @@
+package com.lujon.chip8;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What an unthrottled headless run did and how fast it went.
+ */
+public class RunReport {
+
+  private final long numInstructions;
+  private final long numFrames;
+  private final long elapsedNanos;
+
+  RunReport(long numInstructions, long numFrames, long elapsedNanos) {
+    this.numInstructions = numInstructions;
+    this.numFrames = numFrames;
+    this.elapsedNanos = elapsedNanos;
+  }
+
+  public long getNumInstructions() {
+    return numInstructions;
+  }
+
+  public long getNumFrames() {
+    return numFrames;
+  }
+
+  public long getElapsedNanos() {
+    return elapsedNanos;
+  }
+
+  public double getInstructionsPerSecond() {
+    return perSecond(numInstructions);
+  }
+
+  public double getFramesPerSecond() {
+    return perSecond(numFrames);
+  }
+
+  private double perSecond(long count) {
+    return elapsedNanos == 0 ? 0 : count * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%d instructions, %d frames in %.3f s (%.2f MIPS, %.1f FPS)",
+        numInstructions, numFrames, elapsedNanos / 1e9, getInstructionsPerSecond() / 1e6,
+        getFramesPerSecond());
+  }
+}
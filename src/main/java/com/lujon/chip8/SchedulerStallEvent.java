@@ -0,0 +1,32 @@
+package com.lujon.chip8;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * The {@link FrameScheduler} woke up late enough to notice: it overslept or has frames to catch up
+ * on.
+ */
+@Name("com.lujon.chip8.SchedulerStall")
+@Label("Scheduler Stall")
+@Category("CHIP-8")
+@Description("The frame scheduler woke up late, ran frames back to back or dropped frames")
+@StackTrace(false)
+class SchedulerStallEvent extends Event {
+
+  @Label("Lateness")
+  @Description("How long after the frame was due the scheduler woke up")
+  @Timespan(Timespan.NANOSECONDS)
+  long latenessNanos;
+
+  @Label("Catch-up Frames")
+  int numCatchUpFrames;
+
+  @Label("Dropped Frames")
+  long numDroppedFrames;
+}
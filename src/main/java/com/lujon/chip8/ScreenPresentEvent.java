@@ -0,0 +1,26 @@
+package com.lujon.chip8;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One {@link com.lujon.chip8.screen.Screen#draw()} of the rows changed since the previous one.
+ */
+@Name("com.lujon.chip8.ScreenPresent")
+@Label("Screen Present")
+@Category("CHIP-8")
+@Description("Changed rows copied to the window")
+@StackTrace(false)
+class ScreenPresentEvent extends Event {
+
+  @Label("First Row")
+  int firstRow;
+
+  @Label("End Row")
+  @Description("The row after the last changed row")
+  int endRow;
+}
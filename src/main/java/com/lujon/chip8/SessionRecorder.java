@@ -0,0 +1,65 @@
+package com.lujon.chip8;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes a session log that {@link SessionReplayer} can replay exactly. The log starts with the
+ * seed of the random number generator and the number of instructions per frame, followed by one
+ * record per frame holding the number of timer ticks and the state digest at the end of the frame.
+ *
+ * <p>All values are big-endian. Header: magic {@code "C8RL"}, version byte, seed (long),
+ * instructions per frame (int). Frame: timer ticks (byte), state digest (long).
+ */
+public class SessionRecorder implements Closeable {
+
+  static final int MAGIC = 0x4338524C;
+  static final byte VERSION = 1;
+  static final int HEADER_SIZE = Integer.BYTES + 1 + Long.BYTES + Integer.BYTES;
+  static final int FRAME_SIZE = 1 + Long.BYTES;
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final FileChannel channel;
+  private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+  public SessionRecorder(Path path, long seed, int instructionsPerFrame) throws IOException {
+    this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING);
+
+    buffer.putInt(MAGIC);
+    buffer.put(VERSION);
+    buffer.putLong(seed);
+    buffer.putInt(instructionsPerFrame);
+  }
+
+  public void recordFrame(int timerTicks, long stateDigest) throws IOException {
+    if (buffer.remaining() < FRAME_SIZE) {
+      flush();
+    }
+
+    buffer.put((byte) timerTicks);
+    buffer.putLong(stateDigest);
+  }
+
+  public void flush() throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      flush();
+    } finally {
+      channel.close();
+    }
+  }
+}
@@ -0,0 +1,90 @@
+package com.lujon.chip8;
+
+import com.lujon.chip8.cpu.RandomNumberGenerator;
+import com.lujon.chip8.memory.Memory;
+import com.lujon.chip8.screen.Screen;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Replays a log written by {@link SessionRecorder} headless and as fast as possible, comparing the
+ * state digest after every frame and stopping at the first frame that differs.
+ */
+public class SessionReplayer {
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private SessionReplayer() {
+  }
+
+  public static ReplayResult replay(Path path, byte[] rom) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+      buffer.limit(0);
+
+      if (!fill(channel, buffer, SessionRecorder.HEADER_SIZE)
+          || buffer.getInt() != SessionRecorder.MAGIC) {
+        throw new IOException("Not a session log: " + path);
+      }
+      byte version = buffer.get();
+      if (version != SessionRecorder.VERSION) {
+        throw new IOException("Unsupported session log version " + version + ": " + path);
+      }
+      long seed = buffer.getLong();
+      int instructionsPerFrame = buffer.getInt();
+
+      Memory memory = new Memory();
+      memory.init(rom);
+      Chip8Emulator chip8Emulator =
+          new Chip8Emulator(memory, new Screen(false), new RandomNumberGenerator(seed));
+
+      long startTime = System.nanoTime();
+      long frame = 0;
+
+      while (fill(channel, buffer, SessionRecorder.FRAME_SIZE)) {
+        int timerTicks = buffer.get();
+        long expectedDigest = buffer.getLong();
+
+        chip8Emulator.runFixedCycles(instructionsPerFrame);
+        for (int i = 0; i < timerTicks; i++) {
+          chip8Emulator.tickTimers();
+        }
+
+        long actualDigest = chip8Emulator.getStateDigest();
+        if (actualDigest != expectedDigest) {
+          return new ReplayResult(frame + 1, frame, expectedDigest, actualDigest,
+              System.nanoTime() - startTime);
+        }
+        frame++;
+      }
+
+      return new ReplayResult(frame, -1, 0, 0, System.nanoTime() - startTime);
+    }
+  }
+
+  /**
+   * Makes sure the buffer, which is kept ready for reading, has at least the given number of bytes
+   * left.
+   *
+   * @return false if the log ended first
+   */
+  private static boolean fill(FileChannel channel, ByteBuffer buffer, int numBytes)
+      throws IOException {
+    if (buffer.remaining() >= numBytes) {
+      return true;
+    }
+
+    buffer.compact();
+    while (buffer.position() < numBytes) {
+      if (channel.read(buffer) < 0) {
+        buffer.flip();
+        return false;
+      }
+    }
+    buffer.flip();
+    return true;
+  }
+}
@@ -0,0 +1,26 @@
+package com.lujon.chip8;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The sprite draws of one pass of the real-time loop. Programs can draw thousands of sprites a
+ * second, so they are batched instead of recorded one by one.
+ */
+@Name("com.lujon.chip8.SpriteDraws")
+@Label("Sprite Draws")
+@Category("CHIP-8")
+@Description("Sprites drawn during one pass of the real-time loop and how many collided")
+@StackTrace(false)
+class SpriteDrawsEvent extends Event {
+
+  @Label("Sprites Drawn")
+  long numDraws;
+
+  @Label("Collisions")
+  long numCollisions;
+}
@@ -0,0 +1,76 @@
+package com.lujon.chip8;
+
+import java.util.BitSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * When an unthrottled headless run should stop. Conditions are combined with {@link #or}, and the
+ * run stops as soon as any of them is met.
+ */
+public class StopCondition {
+
+  private final long maxInstructions;
+  private final long maxFrames;
+  private final long maxWallTimeNanos;
+  private final BitSet stopAddresses;
+
+  private StopCondition(long maxInstructions, long maxFrames, long maxWallTimeNanos,
+      BitSet stopAddresses) {
+    this.maxInstructions = maxInstructions;
+    this.maxFrames = maxFrames;
+    this.maxWallTimeNanos = maxWallTimeNanos;
+    this.stopAddresses = stopAddresses;
+  }
+
+  public static StopCondition afterInstructions(long numInstructions) {
+    return new StopCondition(numInstructions, Long.MAX_VALUE, Long.MAX_VALUE, new BitSet());
+  }
+
+  public static StopCondition afterFrames(long numFrames) {
+    return new StopCondition(Long.MAX_VALUE, numFrames, Long.MAX_VALUE, new BitSet());
+  }
+
+  public static StopCondition afterWallTime(long duration, TimeUnit unit) {
+    return new StopCondition(Long.MAX_VALUE, Long.MAX_VALUE, unit.toNanos(duration), new BitSet());
+  }
+
+  /**
+   * Stops when the program counter reaches the given address, before the instruction there runs.
+   */
+  public static StopCondition atAddress(int address) {
+    BitSet stopAddresses = new BitSet();
+    stopAddresses.set(address);
+    return new StopCondition(Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, stopAddresses);
+  }
+
+  public StopCondition or(StopCondition other) {
+    BitSet combinedStopAddresses = (BitSet) stopAddresses.clone();
+    combinedStopAddresses.or(other.stopAddresses);
+
+    return new StopCondition(
+        Math.min(maxInstructions, other.maxInstructions),
+        Math.min(maxFrames, other.maxFrames),
+        Math.min(maxWallTimeNanos, other.maxWallTimeNanos),
+        combinedStopAddresses);
+  }
+
+  long getMaxInstructions() {
+    return maxInstructions;
+  }
+
+  long getMaxFrames() {
+    return maxFrames;
+  }
+
+  long getMaxWallTimeNanos() {
+    return maxWallTimeNanos;
+  }
+
+  boolean hasStopAddresses() {
+    return !stopAddresses.isEmpty();
+  }
+
+  boolean isStopAddress(int address) {
+    return stopAddresses.get(address);
+  }
+}
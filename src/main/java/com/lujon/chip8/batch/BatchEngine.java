@@ -0,0 +1,448 @@
+package com.lujon.chip8.batch;
+
+import com.lujon.chip8.cpu.CPU;
+import com.lujon.chip8.cpu.RandomNumberGenerator;
+import com.lujon.chip8.memory.Memory;
+import java.util.Arrays;
+
+/**
+ * Runs many machines in lockstep with their state kept in flat primitive arrays instead of one
+ * {@link CPU}, {@link Memory} and screen object per machine. Every step fetches one instruction for
+ * each machine, groups the machines by opcode and then executes each group in its own loop, so the
+ * loops only branch on what differs within a group.
+ *
+ * <p>Machines behave like {@link CPU} with a {@link RandomNumberGenerator} seeded the same way,
+ * except that a machine hitting an unknown instruction or a stack overflow is marked faulted and
+ * stops instead of throwing.
+ */
+public class BatchEngine {
+
+  private static final int NUM_REGISTERS = 16;
+  private static final int STACK_SIZE = CPU.STACK_SIZE;
+  private static final int ADDRESS_MASK = Memory.SIZE - 1;
+  private static final int SCREEN_WIDTH = 64;
+  private static final int SCREEN_HEIGHT = 32;
+  private static final int NUM_OPCODE_CLASSES = 16;
+
+  private final int numInstances;
+  private final byte[] registers;
+  private final int[] programCounters;
+  private final int[] indexRegisters;
+  private final int[] delayTimers;
+  private final int[] stacks;
+  private final int[] stackPointers;
+  private final byte[] memory;
+  private final long[] framebuffers;
+  private final long[] randomSeeds;
+  private final boolean[] faulted;
+
+  private final int[] opcodes;
+  private final int[] classSizes = new int[NUM_OPCODE_CLASSES];
+  private final int[] classMembers;
+
+  public BatchEngine(int numInstances) {
+    this.numInstances = numInstances;
+    this.registers = new byte[numInstances * NUM_REGISTERS];
+    this.programCounters = new int[numInstances];
+    this.indexRegisters = new int[numInstances];
+    this.delayTimers = new int[numInstances];
+    this.stacks = new int[numInstances * STACK_SIZE];
+    this.stackPointers = new int[numInstances];
+    this.memory = new byte[numInstances * Memory.SIZE];
+    this.framebuffers = new long[numInstances * SCREEN_HEIGHT];
+    this.randomSeeds = new long[numInstances];
+    this.faulted = new boolean[numInstances];
+    this.opcodes = new int[numInstances];
+    this.classMembers = new int[NUM_OPCODE_CLASSES * numInstances];
+
+    Arrays.fill(programCounters, CPU.INITIAL_PC);
+  }
+
+  public int getNumInstances() {
+    return numInstances;
+  }
+
+  /**
+   * Loads the font and a program into the memory of one machine, as {@link Memory#init} does.
+   */
+  public void load(int instance, byte[] programData) {
+    Memory initialMemory = new Memory();
+    initialMemory.init(programData);
+
+    int base = instance * Memory.SIZE;
+    for (int address = 0; address < Memory.SIZE; address++) {
+      memory[base + address] = initialMemory.getByte(address);
+    }
+  }
+
+  /**
+   * Seeds the random number generator of one machine like {@link RandomNumberGenerator}.
+   */
+  public void seed(int instance, long seed) {
+    randomSeeds[instance] = RandomNumberGenerator.initialState(seed);
+  }
+
+  public void step(int numSteps) {
+    for (int i = 0; i < numSteps; i++) {
+      step();
+    }
+  }
+
+  /**
+   * Executes one instruction on every machine that has not faulted.
+   */
+  public void step() {
+    Arrays.fill(classSizes, 0);
+
+    for (int instance = 0; instance < numInstances; instance++) {
+      if (faulted[instance]) {
+        continue;
+      }
+      int base = instance * Memory.SIZE;
+      int programCounter = programCounters[instance];
+      int opcode = (memory[base + programCounter] & 0xFF) << 8
+          | memory[base + ((programCounter + 1) & ADDRESS_MASK)] & 0xFF;
+
+      opcodes[instance] = opcode;
+      programCounters[instance] = (programCounter + 2) & ADDRESS_MASK;
+
+      int opcodeClass = opcode >>> 12;
+      classMembers[opcodeClass * numInstances + classSizes[opcodeClass]++] = instance;
+    }
+
+    executeSystemInstructions();
+    executeJumps();
+    executeCalls();
+    executeSkipsIfEqualToValue();
+    executeSkipsIfNotEqualToValue();
+    executeSkipsIfRegistersEqual();
+    executeSetRegisters();
+    executeAddToRegisters();
+    executeArithmetic();
+    executeSkipsIfRegistersNotEqual();
+    executeSetIndexRegisters();
+    executeJumpsPlusV0();
+    executeRandomNumbers();
+    executeDraws();
+    faultAll(0xE);
+    executeMiscellaneous();
+  }
+
+  /**
+   * Counts the timers of every machine down by one. Called at 60 Hz.
+   */
+  public void tickTimers() {
+    for (int instance = 0; instance < numInstances; instance++) {
+      if (delayTimers[instance] > 0) {
+        delayTimers[instance]--;
+      }
+    }
+  }
+
+  // 00E0 - CLS, 00EE - RET
+  private void executeSystemInstructions() {
+    int offset = 0x0 * numInstances;
+    for (int k = 0; k < classSizes[0x0]; k++) {
+      int instance = classMembers[offset + k];
+      int nn = opcodes[instance] & 0xFF;
+
+      if (nn == 0xE0) {
+        Arrays.fill(framebuffers, instance * SCREEN_HEIGHT, (instance + 1) * SCREEN_HEIGHT, 0);
+      } else if (nn == 0xEE && stackPointers[instance] > 0) {
+        programCounters[instance] = stacks[instance * STACK_SIZE + --stackPointers[instance]];
+      } else {
+        faulted[instance] = true;
+      }
+    }
+  }
+
+  // 1nnn - JP addr
+  private void executeJumps() {
+    int offset = 0x1 * numInstances;
+    for (int k = 0; k < classSizes[0x1]; k++) {
+      int instance = classMembers[offset + k];
+      programCounters[instance] = opcodes[instance] & 0xFFF;
+    }
+  }
+
+  // 2nnn - CALL addr
+  private void executeCalls() {
+    int offset = 0x2 * numInstances;
+    for (int k = 0; k < classSizes[0x2]; k++) {
+      int instance = classMembers[offset + k];
+      if (stackPointers[instance] == STACK_SIZE) {
+        faulted[instance] = true;
+        continue;
+      }
+      stacks[instance * STACK_SIZE + stackPointers[instance]++] = programCounters[instance];
+      programCounters[instance] = opcodes[instance] & 0xFFF;
+    }
+  }
+
+  // 3xkk - SE Vx, byte
+  private void executeSkipsIfEqualToValue() {
+    int offset = 0x3 * numInstances;
+    for (int k = 0; k < classSizes[0x3]; k++) {
+      int instance = classMembers[offset + k];
+      int opcode = opcodes[instance];
+      if (register(instance, opcode >> 8 & 0xF) == (opcode & 0xFF)) {
+        programCounters[instance] = (programCounters[instance] + 2) & ADDRESS_MASK;
+      }
+    }
+  }
+
+  // 4xkk - SNE Vx, byte
+  private void executeSkipsIfNotEqualToValue() {
+    int offset = 0x4 * numInstances;
+    for (int k = 0; k < classSizes[0x4]; k++) {
+      int instance = classMembers[offset + k];
+      int opcode = opcodes[instance];
+      if (register(instance, opcode >> 8 & 0xF) != (opcode & 0xFF)) {
+        programCounters[instance] = (programCounters[instance] + 2) & ADDRESS_MASK;
+      }
+    }
+  }
+
+  // 5xy0 - SE Vx, Vy
+  private void executeSkipsIfRegistersEqual() {
+    int offset = 0x5 * numInstances;
+    for (int k = 0; k < classSizes[0x5]; k++) {
+      int instance = classMembers[offset + k];
+      int opcode = opcodes[instance];
+      if (register(instance, opcode >> 8 & 0xF) == register(instance, opcode >> 4 & 0xF)) {
+        programCounters[instance] = (programCounters[instance] + 2) & ADDRESS_MASK;
+      }
+    }
+  }
+
+  // 6xkk - LD Vx, byte
+  private void executeSetRegisters() {
+    int offset = 0x6 * numInstances;
+    for (int k = 0; k < classSizes[0x6]; k++) {
+      int instance = classMembers[offset + k];
+      int opcode = opcodes[instance];
+      registers[instance * NUM_REGISTERS + (opcode >> 8 & 0xF)] = (byte) opcode;
+    }
+  }
+
+  // 7xkk - ADD Vx, byte
+  private void executeAddToRegisters() {
+    int offset = 0x7 * numInstances;
+    for (int k = 0; k < classSizes[0x7]; k++) {
+      int instance = classMembers[offset + k];
+      int opcode = opcodes[instance];
+      registers[instance * NUM_REGISTERS + (opcode >> 8 & 0xF)] += (byte) opcode;
+    }
+  }
+
+  // 8xy0 - 8xyE
+  private void executeArithmetic() {
+    int offset = 0x8 * numInstances;
+    for (int k = 0; k < classSizes[0x8]; k++) {
+      int instance = classMembers[offset + k];
+      int opcode = opcodes[instance];
+      int base = instance * NUM_REGISTERS;
+      int x = opcode >> 8 & 0xF;
+      int vx = registers[base + x] & 0xFF;
+      int vy = registers[base + (opcode >> 4 & 0xF)] & 0xFF;
+
+      switch (opcode & 0xF) {
+        case 0x0:
+          registers[base + x] = (byte) vy;
+          break;
+        case 0x1:
+          registers[base + x] = (byte) (vx | vy);
+          break;
+        case 0x2:
+          registers[base + x] = (byte) (vx & vy);
+          break;
+        case 0x3:
+          registers[base + x] = (byte) (vx ^ vy);
+          break;
+        case 0x4:
+          registers[base + 0xF] = (byte) (vx + vy > 0xFF ? 0x01 : 0x00);
+          registers[base + x] = (byte) (vx + vy);
+          break;
+        case 0x5:
+          registers[base + 0xF] = (byte) (vx >= vy ? 0x01 : 0x00);
+          registers[base + x] = (byte) (vx - vy);
+          break;
+        case 0x6:
+          registers[base + 0xF] = (byte) (vx & 0x1);
+          registers[base + x] = (byte) (vx >> 1);
+          break;
+        case 0x7:
+          registers[base + 0xF] = (byte) (vy >= vx ? 0x01 : 0x00);
+          registers[base + x] = (byte) (vy - vx);
+          break;
+        case 0xE:
+          registers[base + 0xF] = (byte) (vx >> 7);
+          registers[base + x] = (byte) (vx << 1);
+          break;
+        default:
+          faulted[instance] = true;
+      }
+    }
+  }
+
+  // 9xy0 - SNE Vx, Vy
+  private void executeSkipsIfRegistersNotEqual() {
+    int offset = 0x9 * numInstances;
+    for (int k = 0; k < classSizes[0x9]; k++) {
+      int instance = classMembers[offset + k];
+      int opcode = opcodes[instance];
+      if (register(instance, opcode >> 8 & 0xF) != register(instance, opcode >> 4 & 0xF)) {
+        programCounters[instance] = (programCounters[instance] + 2) & ADDRESS_MASK;
+      }
+    }
+  }
+
+  // Annn - LD I, addr
+  private void executeSetIndexRegisters() {
+    int offset = 0xA * numInstances;
+    for (int k = 0; k < classSizes[0xA]; k++) {
+      int instance = classMembers[offset + k];
+      indexRegisters[instance] = opcodes[instance] & 0xFFF;
+    }
+  }
+
+  // Bnnn - JP V0, addr
+  private void executeJumpsPlusV0() {
+    int offset = 0xB * numInstances;
+    for (int k = 0; k < classSizes[0xB]; k++) {
+      int instance = classMembers[offset + k];
+      programCounters[instance] =
+          ((opcodes[instance] & 0xFFF) + register(instance, 0x0)) & ADDRESS_MASK;
+    }
+  }
+
+  // Cxkk - RND Vx, byte
+  private void executeRandomNumbers() {
+    int offset = 0xC * numInstances;
+    for (int k = 0; k < classSizes[0xC]; k++) {
+      int instance = classMembers[offset + k];
+      int opcode = opcodes[instance];
+
+      long seed = RandomNumberGenerator.nextState(randomSeeds[instance]);
+      randomSeeds[instance] = seed;
+      int randomNumber = RandomNumberGenerator.byteOf(seed);
+
+      registers[instance * NUM_REGISTERS + (opcode >> 8 & 0xF)] = (byte) (randomNumber & opcode);
+    }
+  }
+
+  // Dxyn - DRW Vx, Vy, nibble
+  private void executeDraws() {
+    int offset = 0xD * numInstances;
+    for (int k = 0; k < classSizes[0xD]; k++) {
+      int instance = classMembers[offset + k];
+      int opcode = opcodes[instance];
+      int x = register(instance, opcode >> 8 & 0xF) % SCREEN_WIDTH;
+      int y = register(instance, opcode >> 4 & 0xF) % SCREEN_HEIGHT;
+      int numVisibleRows = Math.min(opcode & 0xF, SCREEN_HEIGHT - y);
+      int memoryBase = instance * Memory.SIZE;
+      int rowBase = instance * SCREEN_HEIGHT + y;
+      int indexRegister = indexRegisters[instance];
+      long collisions = 0;
+
+      for (int rowIndex = 0; rowIndex < numVisibleRows; rowIndex++) {
+        int sprite = memory[memoryBase + ((indexRegister + rowIndex) & ADDRESS_MASK)] & 0xFF;
+        long spriteBits = (long) sprite << 56 >>> x;
+        long row = framebuffers[rowBase + rowIndex];
+
+        framebuffers[rowBase + rowIndex] = row ^ spriteBits;
+        collisions |= row & spriteBits;
+      }
+
+      registers[instance * NUM_REGISTERS + 0xF] = (byte) (collisions != 0 ? 0x01 : 0x00);
+    }
+  }
+
+  // Fx07 - Fx65
+  private void executeMiscellaneous() {
+    int offset = 0xF * numInstances;
+    for (int k = 0; k < classSizes[0xF]; k++) {
+      int instance = classMembers[offset + k];
+      int opcode = opcodes[instance];
+      int registerBase = instance * NUM_REGISTERS;
+      int memoryBase = instance * Memory.SIZE;
+      int x = opcode >> 8 & 0xF;
+      int vx = registers[registerBase + x] & 0xFF;
+      int indexRegister = indexRegisters[instance];
+
+      switch (opcode & 0xFF) {
+        case 0x07:
+          registers[registerBase + x] = (byte) delayTimers[instance];
+          break;
+        case 0x15:
+          delayTimers[instance] = vx;
+          break;
+        case 0x1E:
+          indexRegisters[instance] = indexRegister + vx;
+          break;
+        case 0x29:
+          indexRegisters[instance] = Memory.FONT_START_ADDRESS + 5 * vx;
+          break;
+        case 0x33:
+          memory[memoryBase + (indexRegister & ADDRESS_MASK)] = (byte) (vx / 100);
+          memory[memoryBase + ((indexRegister + 1) & ADDRESS_MASK)] = (byte) (vx / 10 % 10);
+          memory[memoryBase + ((indexRegister + 2) & ADDRESS_MASK)] = (byte) (vx % 10);
+          break;
+        case 0x55:
+          for (int i = 0; i <= x; i++) {
+            memory[memoryBase + ((indexRegister + i) & ADDRESS_MASK)] = registers[registerBase + i];
+          }
+          break;
+        case 0x65:
+          for (int i = 0; i <= x; i++) {
+            registers[registerBase + i] = memory[memoryBase + ((indexRegister + i) & ADDRESS_MASK)];
+          }
+          break;
+        default:
+          faulted[instance] = true;
+      }
+    }
+  }
+
+  private void faultAll(int opcodeClass) {
+    int offset = opcodeClass * numInstances;
+    for (int k = 0; k < classSizes[opcodeClass]; k++) {
+      faulted[classMembers[offset + k]] = true;
+    }
+  }
+
+  private int register(int instance, int register) {
+    return registers[instance * NUM_REGISTERS + register] & 0xFF;
+  }
+
+  public int getRegister(int instance, int register) {
+    return register(instance, register);
+  }
+
+  public int getProgramCounter(int instance) {
+    return programCounters[instance];
+  }
+
+  public int getIndexRegister(int instance) {
+    return indexRegisters[instance];
+  }
+
+  public int getDelayTimer(int instance) {
+    return delayTimers[instance];
+  }
+
+  public byte getByte(int instance, int address) {
+    return memory[instance * Memory.SIZE + (address & ADDRESS_MASK)];
+  }
+
+  /**
+   * Returns screen row y of one machine with the leftmost pixel in the most significant bit.
+   */
+  public long getRow(int instance, int y) {
+    return framebuffers[instance * SCREEN_HEIGHT + y];
+  }
+
+  public boolean isFaulted(int instance) {
+    return faulted[instance];
+  }
+}
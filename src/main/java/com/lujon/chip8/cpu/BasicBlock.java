@@ -0,0 +1,70 @@
+package com.lujon.chip8.cpu;
+
+/**
+ * A straight-line run of decoded instructions that is entered at its first instruction and left
+ * after its last one, compiled by {@link BlockCompiler}. Blocks remember the blocks that followed
+ * them so that the next block can usually be found without a lookup.
+ */
+class BasicBlock {
+
+  private final int startAddress;
+  private final int length;
+  private final BlockHandler handler;
+  private boolean valid = true;
+  private BasicBlock firstSuccessor;
+  private BasicBlock secondSuccessor;
+
+  BasicBlock(int startAddress, Instruction[] instructions) {
+    this.startAddress = startAddress;
+    this.length = instructions.length;
+    this.handler = BlockCompiler.compile(startAddress, instructions);
+  }
+
+  int getStartAddress() {
+    return startAddress;
+  }
+
+  int getLength() {
+    return length;
+  }
+
+  /**
+   * Runs the block until it is left or the given number of instructions have been executed.
+   *
+   * @return the number of instructions executed
+   */
+  int execute(CPU cpu, int maxInstructions) {
+    if (maxInstructions >= length) {
+      return handler.run(cpu, maxInstructions);
+    }
+
+    // Too few instructions left for the whole block, which only happens at the end of a slice
+    cpu.execute(maxInstructions);
+    return maxInstructions;
+  }
+
+  BasicBlock getSuccessor(int address) {
+    if (firstSuccessor != null && firstSuccessor.startAddress == address && firstSuccessor.valid) {
+      return firstSuccessor;
+    }
+    if (secondSuccessor != null && secondSuccessor.startAddress == address
+        && secondSuccessor.valid) {
+      return secondSuccessor;
+    }
+    return null;
+  }
+
+  void linkSuccessor(BasicBlock successor) {
+    if (firstSuccessor == null || !firstSuccessor.valid) {
+      firstSuccessor = successor;
+    } else {
+      secondSuccessor = successor;
+    }
+  }
+
+  void invalidate() {
+    valid = false;
+    firstSuccessor = null;
+    secondSuccessor = null;
+  }
+}
@@ -0,0 +1,452 @@
+package com.lujon.chip8.cpu;
+
+import static com.lujon.chip8.cpu.ClassFileWriter.AALOAD;
+import static com.lujon.chip8.cpu.ClassFileWriter.ALOAD;
+import static com.lujon.chip8.cpu.ClassFileWriter.ASTORE;
+import static com.lujon.chip8.cpu.ClassFileWriter.BALOAD;
+import static com.lujon.chip8.cpu.ClassFileWriter.BASTORE;
+import static com.lujon.chip8.cpu.ClassFileWriter.GETFIELD;
+import static com.lujon.chip8.cpu.ClassFileWriter.GOTO;
+import static com.lujon.chip8.cpu.ClassFileWriter.IADD;
+import static com.lujon.chip8.cpu.ClassFileWriter.IAND;
+import static com.lujon.chip8.cpu.ClassFileWriter.IF_ICMPEQ;
+import static com.lujon.chip8.cpu.ClassFileWriter.IF_ICMPGE;
+import static com.lujon.chip8.cpu.ClassFileWriter.IF_ICMPNE;
+import static com.lujon.chip8.cpu.ClassFileWriter.ILOAD;
+import static com.lujon.chip8.cpu.ClassFileWriter.IMUL;
+import static com.lujon.chip8.cpu.ClassFileWriter.INVOKEVIRTUAL;
+import static com.lujon.chip8.cpu.ClassFileWriter.IOR;
+import static com.lujon.chip8.cpu.ClassFileWriter.IRETURN;
+import static com.lujon.chip8.cpu.ClassFileWriter.ISHL;
+import static com.lujon.chip8.cpu.ClassFileWriter.ISHR;
+import static com.lujon.chip8.cpu.ClassFileWriter.ISTORE;
+import static com.lujon.chip8.cpu.ClassFileWriter.ISUB;
+import static com.lujon.chip8.cpu.ClassFileWriter.IUSHR;
+import static com.lujon.chip8.cpu.ClassFileWriter.IXOR;
+
+import com.lujon.chip8.memory.Memory;
+import java.lang.invoke.MethodHandles;
+
+/**
+ * Compiles a basic block into a hidden class. The program counter, the index register and every V
+ * register the block uses live in locals of the generated method, so that HotSpot can keep them in
+ * machine registers; they are read from the CPU when the block is entered and written back when it
+ * is left. Register and index instructions, jumps and skips are compiled inline. Everything else
+ * needs the rest of the machine and is executed by the CPU, with the registers written back before
+ * and read again after. A skip over an instruction of the block stays inside the block, and a block
+ * that ends with a jump to its own start loops without leaving.
+ */
+class BlockCompiler {
+
+  private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+  private static final String CLASS_NAME = "com/lujon/chip8/cpu/CompiledBlock";
+  private static final String CPU_CLASS = "com/lujon/chip8/cpu/CPU";
+  private static final String INSTRUCTIONS_DESCRIPTOR = "[Lcom/lujon/chip8/cpu/Instruction;";
+
+  // Locals of the generated run method
+  private static final int THIS = 0;
+  private static final int CPU_ARGUMENT = 1;
+  private static final int MAX_INSTRUCTIONS = 2;
+  private static final int REGISTERS = 3;
+  private static final int PC = 4;
+  private static final int INDEX = 5;
+  private static final int COUNT = 6;
+  private static final int V0 = 7;
+  private static final int TEMP = V0 + 16;
+  private static final int MAX_LOCALS = TEMP + 1;
+  private static final int MAX_STACK = 4;
+
+  private final int startAddress;
+  private final Instruction[] instructions;
+  private final boolean[] usedRegisters = new boolean[16];
+  private final boolean[] writtenRegisters = new boolean[16];
+  private final ClassFileWriter writer;
+  private int[] instructionLabels;
+  private int topLabel;
+  private int exitLabel;
+
+  private BlockCompiler(int startAddress, Instruction[] instructions) {
+    this.startAddress = startAddress;
+    this.instructions = instructions;
+    this.writer = new ClassFileWriter(CLASS_NAME, "com/lujon/chip8/cpu/BlockHandler");
+  }
+
+  static BlockHandler compile(int startAddress, Instruction[] instructions) {
+    byte[] classFile = new BlockCompiler(startAddress, instructions).writeClassFile();
+
+    try {
+      Class<?> handlerClass = LOOKUP.defineHiddenClass(classFile, true).lookupClass();
+      return (BlockHandler) handlerClass.getConstructor(Instruction[].class)
+          .newInstance((Object) instructions);
+    } catch (ReflectiveOperationException | LinkageError e) {
+      throw new IllegalStateException(
+          "Could not compile block at " + Integer.toHexString(startAddress), e);
+    }
+  }
+
+  private byte[] writeClassFile() {
+    for (Instruction instruction : instructions) {
+      findRegisters(instruction);
+    }
+
+    writer.setField("instructions", INSTRUCTIONS_DESCRIPTOR);
+    writer.beginMethod();
+
+    invokeCpu("getRegisters", "()[B");
+    writer.emitLocal(ASTORE, REGISTERS);
+    invokeCpu("getIndexRegister", "()I");
+    writer.emitLocal(ISTORE, INDEX);
+    writer.emitPush(0);
+    writer.emitLocal(ISTORE, COUNT);
+    loadRegisters();
+
+    topLabel = writer.newLabel();
+    exitLabel = writer.newLabel();
+    // One past the end is where falling out of the block lands, two past is where a final skip does
+    instructionLabels = new int[instructions.length + 2];
+    for (int i = 0; i < instructionLabels.length; i++) {
+      instructionLabels[i] = writer.newLabel();
+    }
+
+    writer.placeLabel(topLabel);
+    for (int i = 0; i < instructions.length; i++) {
+      writer.placeLabel(instructionLabels[i]);
+      writer.emitIncrement(COUNT, 1);
+      writeInstruction(i);
+    }
+    for (int i = instructions.length; i < instructionLabels.length; i++) {
+      writer.placeLabel(instructionLabels[i]);
+      exitAt(addressOf(i));
+    }
+
+    writer.placeLabel(exitLabel);
+    storeRegisters();
+    writer.emitLocal(ALOAD, CPU_ARGUMENT);
+    writer.emitLocal(ILOAD, PC);
+    writer.emitMemberInstruction(INVOKEVIRTUAL, CPU_CLASS, "setProgramCounter", "(I)V");
+    writer.emitLocal(ALOAD, CPU_ARGUMENT);
+    writer.emitLocal(ILOAD, INDEX);
+    writer.emitMemberInstruction(INVOKEVIRTUAL, CPU_CLASS, "setIndexRegister", "(I)V");
+    writer.emitLocal(ILOAD, COUNT);
+    writer.emit(IRETURN);
+    writer.endMethod("run", "(L" + CPU_CLASS + ";I)I", MAX_STACK, MAX_LOCALS);
+
+    return writer.toByteArray();
+  }
+
+  private void findRegisters(Instruction instruction) {
+    OpcodeFamily family = instruction.getFamily();
+    if (family == null || !isInline(family)) {
+      return;
+    }
+
+    int x = instruction.getX();
+    int y = instruction.getY();
+    switch (family) {
+      case LD_VX_BYTE:
+      case ADD_VX_BYTE:
+        usedRegisters[x] = true;
+        writtenRegisters[x] = true;
+        break;
+      case LD_VX_VY:
+      case OR:
+      case AND:
+      case XOR:
+        usedRegisters[x] = true;
+        usedRegisters[y] = true;
+        writtenRegisters[x] = true;
+        break;
+      case ADD_VX_VY:
+      case SUB:
+      case SUBN:
+        usedRegisters[x] = true;
+        usedRegisters[y] = true;
+        usedRegisters[0xF] = true;
+        writtenRegisters[x] = true;
+        writtenRegisters[0xF] = true;
+        break;
+      case SHR:
+      case SHL:
+        usedRegisters[x] = true;
+        usedRegisters[0xF] = true;
+        writtenRegisters[x] = true;
+        writtenRegisters[0xF] = true;
+        break;
+      case SE_VX_VY:
+      case SNE_VX_VY:
+        usedRegisters[x] = true;
+        usedRegisters[y] = true;
+        break;
+      case ADD_I_VX:
+      case LD_F_VX:
+      case SE_VX_BYTE:
+      case SNE_VX_BYTE:
+        usedRegisters[x] = true;
+        break;
+      default:
+        break;
+    }
+  }
+
+  private static boolean isInline(OpcodeFamily family) {
+    switch (family) {
+      case LD_VX_BYTE:
+      case ADD_VX_BYTE:
+      case LD_VX_VY:
+      case OR:
+      case AND:
+      case XOR:
+      case ADD_VX_VY:
+      case SUB:
+      case SHR:
+      case SUBN:
+      case SHL:
+      case LD_I:
+      case ADD_I_VX:
+      case LD_F_VX:
+      case JP:
+      case SE_VX_BYTE:
+      case SNE_VX_BYTE:
+      case SE_VX_VY:
+      case SNE_VX_VY:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  private void writeInstruction(int i) {
+    Instruction instruction = instructions[i];
+    OpcodeFamily family = instruction.getFamily();
+    if (family == null || !isInline(family)) {
+      writeThroughCpu(i);
+      return;
+    }
+
+    int vx = V0 + instruction.getX();
+    int vy = V0 + instruction.getY();
+    int vf = V0 + 0xF;
+    switch (family) {
+      case LD_VX_BYTE:
+        writer.emitPush(instruction.getNN());
+        writer.emitLocal(ISTORE, vx);
+        break;
+      case ADD_VX_BYTE:
+        writer.emitLocal(ILOAD, vx);
+        writer.emitPush(instruction.getNN());
+        writer.emit(IADD);
+        storeByte(vx);
+        break;
+      case LD_VX_VY:
+        writer.emitLocal(ILOAD, vy);
+        writer.emitLocal(ISTORE, vx);
+        break;
+      case OR:
+        writeOperation(IOR, vx, vy);
+        break;
+      case AND:
+        writeOperation(IAND, vx, vy);
+        break;
+      case XOR:
+        writeOperation(IXOR, vx, vy);
+        break;
+      case ADD_VX_VY:
+        // The carry is bit 8 of the sum
+        writeToTemp(IADD, vx, vy);
+        writer.emitLocal(ILOAD, TEMP);
+        writer.emitPush(8);
+        writer.emit(ISHR);
+        writer.emitLocal(ISTORE, vf);
+        writer.emitLocal(ILOAD, TEMP);
+        storeByte(vx);
+        break;
+      case SUB:
+        writeSubtraction(vx, vx, vy, vf);
+        break;
+      case SUBN:
+        writeSubtraction(vx, vy, vx, vf);
+        break;
+      case SHR:
+        writer.emitLocal(ILOAD, vx);
+        writer.emitLocal(ISTORE, TEMP);
+        writer.emitLocal(ILOAD, TEMP);
+        writer.emitPush(1);
+        writer.emit(IAND);
+        writer.emitLocal(ISTORE, vf);
+        writer.emitLocal(ILOAD, TEMP);
+        writer.emitPush(1);
+        writer.emit(ISHR);
+        writer.emitLocal(ISTORE, vx);
+        break;
+      case SHL:
+        writer.emitLocal(ILOAD, vx);
+        writer.emitLocal(ISTORE, TEMP);
+        writer.emitLocal(ILOAD, TEMP);
+        writer.emitPush(7);
+        writer.emit(ISHR);
+        writer.emitLocal(ISTORE, vf);
+        writer.emitLocal(ILOAD, TEMP);
+        writer.emitPush(1);
+        writer.emit(ISHL);
+        storeByte(vx);
+        break;
+      case LD_I:
+        writer.emitPush(instruction.getNNN());
+        writer.emitLocal(ISTORE, INDEX);
+        break;
+      case ADD_I_VX:
+        writer.emitLocal(ILOAD, INDEX);
+        writer.emitLocal(ILOAD, vx);
+        writer.emit(IADD);
+        writer.emitLocal(ISTORE, INDEX);
+        break;
+      case LD_F_VX:
+        writer.emitPush(Memory.FONT_START_ADDRESS);
+        writer.emitLocal(ILOAD, vx);
+        writer.emitPush(5);
+        writer.emit(IMUL);
+        writer.emit(IADD);
+        writer.emitLocal(ISTORE, INDEX);
+        break;
+      case JP:
+        writeJump(instruction.getNNN());
+        break;
+      case SE_VX_BYTE:
+        writeSkip(i, IF_ICMPEQ, vx, -1, instruction.getNN());
+        break;
+      case SNE_VX_BYTE:
+        writeSkip(i, IF_ICMPNE, vx, -1, instruction.getNN());
+        break;
+      case SE_VX_VY:
+        writeSkip(i, IF_ICMPEQ, vx, vy, 0);
+        break;
+      case SNE_VX_VY:
+        writeSkip(i, IF_ICMPNE, vx, vy, 0);
+        break;
+      default:
+        throw new IllegalStateException("Not inline: " + family);
+    }
+  }
+
+  private void writeOperation(int opcode, int vx, int vy) {
+    writer.emitLocal(ILOAD, vx);
+    writer.emitLocal(ILOAD, vy);
+    writer.emit(opcode);
+    writer.emitLocal(ISTORE, vx);
+  }
+
+  private void writeToTemp(int opcode, int left, int right) {
+    writer.emitLocal(ILOAD, left);
+    writer.emitLocal(ILOAD, right);
+    writer.emit(opcode);
+    writer.emitLocal(ISTORE, TEMP);
+  }
+
+  private void writeSubtraction(int vx, int minuend, int subtrahend, int vf) {
+    // No borrow exactly when the difference is not negative
+    writeToTemp(ISUB, minuend, subtrahend);
+    writer.emitLocal(ILOAD, TEMP);
+    writer.emitPush(31);
+    writer.emit(IUSHR);
+    writer.emitPush(1);
+    writer.emit(IXOR);
+    writer.emitLocal(ISTORE, vf);
+    writer.emitLocal(ILOAD, TEMP);
+    storeByte(vx);
+  }
+
+  private void writeJump(int targetAddress) {
+    if (targetAddress == startAddress) {
+      // Loop while another pass is sure to fit, skips can only make a pass shorter
+      writer.emitLocal(ILOAD, MAX_INSTRUCTIONS);
+      writer.emitLocal(ILOAD, COUNT);
+      writer.emit(ISUB);
+      writer.emitPush(instructions.length);
+      writer.emitJump(IF_ICMPGE, topLabel);
+    }
+    exitAt(targetAddress);
+  }
+
+  private void writeSkip(int i, int opcode, int vx, int vy, int value) {
+    writer.emitLocal(ILOAD, vx);
+    if (vy >= 0) {
+      writer.emitLocal(ILOAD, vy);
+    } else {
+      writer.emitPush(value);
+    }
+    writer.emitJump(opcode, instructionLabels[i + 2]);
+  }
+
+  private void writeThroughCpu(int i) {
+    storeRegisters();
+    writer.emitLocal(ALOAD, CPU_ARGUMENT);
+    writer.emitPush(addressOf(i + 1));
+    writer.emitMemberInstruction(INVOKEVIRTUAL, CPU_CLASS, "setProgramCounter", "(I)V");
+    writer.emitLocal(ALOAD, CPU_ARGUMENT);
+    writer.emitLocal(ILOAD, INDEX);
+    writer.emitMemberInstruction(INVOKEVIRTUAL, CPU_CLASS, "setIndexRegister", "(I)V");
+
+    writer.emitLocal(ALOAD, CPU_ARGUMENT);
+    writer.emitLocal(ALOAD, THIS);
+    writer.emitMemberInstruction(GETFIELD, CLASS_NAME, "instructions", INSTRUCTIONS_DESCRIPTOR);
+    writer.emitPush(i);
+    writer.emit(AALOAD);
+    writer.emitMemberInstruction(INVOKEVIRTUAL, CPU_CLASS, "executeInstruction",
+        "(Lcom/lujon/chip8/cpu/Instruction;)V");
+
+    loadRegisters();
+    invokeCpu("getIndexRegister", "()I");
+    writer.emitLocal(ISTORE, INDEX);
+
+    // Only the last instruction of a block can move the program counter
+    if (i == instructions.length - 1) {
+      invokeCpu("getProgramCounter", "()I");
+      writer.emitLocal(ISTORE, PC);
+      writer.emitJump(GOTO, exitLabel);
+    }
+  }
+
+  private void exitAt(int address) {
+    writer.emitPush(address);
+    writer.emitLocal(ISTORE, PC);
+    writer.emitJump(GOTO, exitLabel);
+  }
+
+  private void storeByte(int local) {
+    writer.emitPush(0xFF);
+    writer.emit(IAND);
+    writer.emitLocal(ISTORE, local);
+  }
+
+  private void loadRegisters() {
+    for (int register = 0; register < 16; register++) {
+      if (usedRegisters[register]) {
+        writer.emitLocal(ALOAD, REGISTERS);
+        writer.emitPush(register);
+        writer.emit(BALOAD);
+        storeByte(V0 + register);
+      }
+    }
+  }
+
+  private void storeRegisters() {
+    for (int register = 0; register < 16; register++) {
+      if (writtenRegisters[register]) {
+        writer.emitLocal(ALOAD, REGISTERS);
+        writer.emitPush(register);
+        writer.emitLocal(ILOAD, V0 + register);
+        writer.emit(BASTORE);
+      }
+    }
+  }
+
+  private void invokeCpu(String name, String descriptor) {
+    writer.emitLocal(ALOAD, CPU_ARGUMENT);
+    writer.emitMemberInstruction(INVOKEVIRTUAL, CPU_CLASS, name, descriptor);
+  }
+
+  private int addressOf(int i) {
+    return startAddress + 2 * i;
+  }
+}
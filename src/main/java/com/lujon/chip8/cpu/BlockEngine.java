@@ -0,0 +1,127 @@
+package com.lujon.chip8.cpu;
+
+import com.lujon.chip8.memory.Memory;
+import com.lujon.chip8.memory.MemoryWriteListener;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Execution engine that compiles memory into basic blocks of JVM bytecode once and then runs whole
+ * blocks, following links between blocks instead of fetching and decoding every instruction.
+ * Blocks end at jumps, calls, returns and instructions that write to memory. Any write to memory
+ * that a block was decoded from discards all blocks. See {@link BlockCompiler} for how a block
+ * runs.
+ */
+public class BlockEngine implements ExecutionEngine, MemoryWriteListener {
+
+  private static final int MAX_BLOCK_LENGTH = 64;
+  private static final int ADDRESS_MASK = Memory.SIZE - 1;
+
+  private final CPU cpu;
+  private final Memory memory;
+  private final BasicBlock[] blocks = new BasicBlock[Memory.SIZE];
+  private final List<BasicBlock> compiledBlocks = new ArrayList<>();
+  private final boolean[] compiledAddresses = new boolean[Memory.SIZE];
+  private BasicBlock previousBlock;
+
+  public BlockEngine(CPU cpu, Memory memory) {
+    this.cpu = cpu;
+    this.memory = memory;
+
+    memory.addWriteListener(this);
+  }
+
+  @Override
+  public void execute(int numInstructions) {
+    while (numInstructions > 0) {
+      int address = cpu.getProgramCounter();
+      BasicBlock block = previousBlock != null ? previousBlock.getSuccessor(address) : null;
+
+      if (block == null) {
+        block = findBlock(address);
+        if (previousBlock != null) {
+          previousBlock.linkSuccessor(block);
+        }
+      }
+
+      // Compiled blocks keep the program counter to themselves, so samples land on the block start
+      cpu.setCurrentAddress(address);
+      int numExecuted = block.execute(cpu, numInstructions);
+      // A block that used up the instructions may have stopped in the middle, so it is not linked
+      previousBlock = numExecuted < numInstructions ? block : null;
+      numInstructions -= numExecuted;
+    }
+  }
+
+  private BasicBlock findBlock(int address) {
+    BasicBlock block = blocks[address];
+
+    if (block == null) {
+      block = compileBlock(address);
+      blocks[address] = block;
+      compiledBlocks.add(block);
+    }
+
+    return block;
+  }
+
+  private BasicBlock compileBlock(int startAddress) {
+    List<Instruction> instructions = new ArrayList<>();
+    int address = startAddress;
+    Instruction instruction;
+
+    do {
+      byte firstByte = memory.getByte(address);
+      byte secondByte = memory.getByte(address + 1);
+      instruction = new Instruction((firstByte & 0xFF) << 8 | secondByte & 0xFF);
+
+      instructions.add(instruction);
+      compiledAddresses[address] = true;
+      // An instruction at the last address takes its second byte from the first
+      compiledAddresses[(address + 1) & ADDRESS_MASK] = true;
+      address += 2;
+    } while (!endsBlock(instruction)
+        && instructions.size() < MAX_BLOCK_LENGTH
+        && address + 1 < Memory.SIZE);
+
+    return new BasicBlock(startAddress, instructions.toArray(new Instruction[0]));
+  }
+
+  private static boolean endsBlock(Instruction instruction) {
+    switch (instruction.getOpCode()) {
+      case 0x0:
+        return instruction.getNN() != 0xE0;
+      case 0x1:
+      case 0x2:
+      case 0xB:
+        return true;
+      case 0xF:
+        return instruction.getNN() == 0x33 || instruction.getNN() == 0x55;
+      default:
+        return false;
+    }
+  }
+
+  @Override
+  public void onWrite(int address, int length) {
+    int endAddress = Math.min(address + length, Memory.SIZE);
+
+    for (int i = address; i < endAddress; i++) {
+      if (compiledAddresses[i]) {
+        invalidateAllBlocks();
+        return;
+      }
+    }
+  }
+
+  private void invalidateAllBlocks() {
+    for (BasicBlock block : compiledBlocks) {
+      block.invalidate();
+    }
+    compiledBlocks.clear();
+    Arrays.fill(blocks, null);
+    Arrays.fill(compiledAddresses, false);
+    previousBlock = null;
+  }
+}
@@ -0,0 +1,16 @@
+package com.lujon.chip8.cpu;
+
+/**
+ * A basic block compiled by {@link BlockCompiler}.
+ */
+interface BlockHandler {
+
+  /**
+   * Runs the block from its first instruction, and again for as long as it jumps back to its own
+   * start and another pass is sure to fit, leaving the CPU at the next instruction to execute.
+   * There must be room for at least one pass.
+   *
+   * @return the number of instructions executed
+   */
+  int run(CPU cpu, int maxInstructions);
+}
@@ -3,30 +3,52 @@ package com.lujon.chip8.cpu;
 import com.lujon.chip8.memory.Memory;
 import com.lujon.chip8.screen.Screen;
 import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.Deque;
-import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
 
-public class CPU {
+public class CPU implements ExecutionEngine {
 
   public static final int INITIAL_PC = 0x200;
+  public static final int STACK_SIZE = 16;
+
+  // The program counter wraps at the end of memory like every other address
+  private static final int ADDRESS_MASK = Memory.SIZE - 1;
 
   private final Memory memory;
   private final Screen screen;
-  private final Random randomNumberGenerator;
+  private final RandomNumberGenerator randomNumberGenerator;
   private final byte[] registers = new byte[16];
+  private final byte[] bcdDigits = new byte[3];
   private int programCounter = INITIAL_PC;
+  // Address of the instruction being executed, published only while a sampler is attached
+  private final AtomicInteger currentAddress = new AtomicInteger(INITIAL_PC);
+  private boolean publishingCurrentAddress;
   private int indexRegister;
   private int delayTimer;
-  private final Deque<Integer> stack = new ArrayDeque<>();
+  private final int[] stack = new int[STACK_SIZE];
+  private int stackPointer;
+  private final InstructionCache instructionCache = new InstructionCache();
+  private final Dispatch dispatch;
+  private long numSpriteDraws;
+  private long numSpriteCollisions;
 
   public CPU(Memory memory, Screen screen) {
-    this(memory, screen, new Random());
+    this(memory, screen, new RandomNumberGenerator());
+  }
+
+  public CPU(Memory memory, Screen screen, RandomNumberGenerator randomNumberGenerator) {
+    this(memory, screen, randomNumberGenerator, Dispatch.SWITCH);
   }
 
-  public CPU(Memory memory, Screen screen, Random randomNumberGenerator) {
+  public CPU(Memory memory, Screen screen, RandomNumberGenerator randomNumberGenerator,
+      Dispatch dispatch) {
     this.memory = memory;
     this.screen = screen;
     this.randomNumberGenerator = randomNumberGenerator;
+    this.dispatch = dispatch;
+
+    memory.addWriteListener(instructionCache);
   }
 
   public void executeInstructionFromMemory() {
@@ -34,17 +56,75 @@ public class CPU {
     executeInstruction(instruction);
   }
 
-  private Instruction fetchInstruction() {
-    byte firstByte = memory.getByte(programCounter);
-    byte secondByte = memory.getByte(programCounter + 1);
-    int instruction = (firstByte & 0xFF) << 8 | secondByte & 0xFF;
+  @Override
+  public void execute(int numInstructions) {
+    for (int i = 0; i < numInstructions; i++) {
+      executeInstructionFromMemory();
+    }
+  }
+
+  /**
+   * Fills the instruction cache from a program decoded ahead of time, so that nothing has to be
+   * decoded while running. The program must have been decoded from the current memory contents.
+   */
+  public void preload(DecodedProgram program) {
+    instructionCache.preload(program);
+  }
+
+  /**
+   * Counts the timers down by one. Called at 60 Hz.
+   */
+  public void tickTimers() {
+    if (delayTimer > 0) {
+      delayTimer--;
+    }
+  }
+
+  Instruction fetchInstruction() {
+    if (publishingCurrentAddress) {
+      currentAddress.lazySet(programCounter);
+    }
+    Instruction instruction = peekInstruction();
+
+    programCounter = (programCounter + 2) & ADDRESS_MASK;
+
+    return instruction;
+  }
+
+  /**
+   * Returns the instruction at the program counter without moving past it.
+   */
+  Instruction peekInstruction() {
+    Instruction instruction = instructionCache.get(programCounter);
+
+    if (instruction == null) {
+      instruction = decodeInstruction(programCounter);
+      instructionCache.put(programCounter, instruction);
+    }
+
+    return instruction;
+  }
+
+  private Instruction decodeInstruction(int address) {
+    byte firstByte = memory.getByte(address);
+    byte secondByte = memory.getByte(address + 1);
 
-    programCounter += 2;
+    return new Instruction((firstByte & 0xFF) << 8 | secondByte & 0xFF);
+  }
 
-    return new Instruction(instruction);
+  private void skipInstruction() {
+    programCounter = (programCounter + 2) & ADDRESS_MASK;
   }
 
   public void executeInstruction(Instruction instruction) {
+    if (dispatch == Dispatch.TABLE) {
+      instruction.getHandler().execute(this, instruction);
+    } else {
+      executeInstructionWithSwitch(instruction);
+    }
+  }
+
+  private void executeInstructionWithSwitch(Instruction instruction) {
     switch (instruction.getOpCode()) {
       case 0x0:
         switch (instruction.getNN()) {
@@ -160,79 +240,85 @@ public class CPU {
   }
 
   // 00E0 - CLS
-  private void clearScreen() {
+  void clearScreen() {
     screen.clear();
   }
 
   // 00EE - RET
-  private void returnFromSubroutine() {
-    programCounter = stack.pop();
+  void returnFromSubroutine() {
+    if (stackPointer == 0) {
+      throw new IllegalStateException("Stack underflow at " + Integer.toHexString(programCounter));
+    }
+    programCounter = stack[--stackPointer];
   }
 
   // 1nnn - JP addr
-  private void jumpToAddress(int address) {
+  void jumpToAddress(int address) {
     programCounter = address;
   }
 
   // 2nnn - CALL addr
-  private void jumpToSubroutine(int address) {
-    stack.push(programCounter);
+  void jumpToSubroutine(int address) {
+    if (stackPointer == STACK_SIZE) {
+      throw new IllegalStateException("Stack overflow at " + Integer.toHexString(programCounter));
+    }
+    stack[stackPointer++] = programCounter;
     programCounter = address;
   }
 
   // 3xkk - SE Vx, byte
-  private void skipInstructionIfRegisterEqualToValue(int register, int value) {
+  void skipInstructionIfRegisterEqualToValue(int register, int value) {
     if (getRegister(register) == value) {
-      programCounter += 2;
+      skipInstruction();
     }
   }
 
   // 4xkk - SNE Vx, byte
-  private void skipInstructionIfRegisterNotEqualToValue(int register, int value) {
+  void skipInstructionIfRegisterNotEqualToValue(int register, int value) {
     if (getRegister(register) != value) {
-      programCounter += 2;
+      skipInstruction();
     }
   }
 
   // 5xy0 - SE Vx, Vy
-  private void skipInstructionIfRegisterEqualToOtherRegister(int register1, int register2) {
+  void skipInstructionIfRegisterEqualToOtherRegister(int register1, int register2) {
     if (getRegister(register1) == getRegister(register2)) {
-      programCounter += 2;
+      skipInstruction();
     }
   }
 
   // 6xkk - LD Vx, byte
-  private void setRegister(int register, int value) {
+  void setRegister(int register, int value) {
     registers[register] = (byte) value;
   }
 
   // 7xkk - ADD Vx, byte
-  private void addToRegister(int register, int value) {
+  void addToRegister(int register, int value) {
     setRegister(register, getRegister(register) + value);
   }
 
   // 8xy0 - LD Vx, Vy
-  private void setRegisterToOtherRegister(int toRegister, int fromRegister) {
+  void setRegisterToOtherRegister(int toRegister, int fromRegister) {
     registers[toRegister] = registers[fromRegister];
   }
 
   // 8xy1 - OR Vx, Vy
-  private void orRegisters(int register1, int register2) {
+  void orRegisters(int register1, int register2) {
     registers[register1] |= registers[register2];
   }
 
   // 8xy2 - AND Vx, Vy
-  private void andRegisters(int register1, int register2) {
+  void andRegisters(int register1, int register2) {
     registers[register1] &= registers[register2];
   }
 
   // 8xy3 - XOR Vx, Vy
-  private void xorRegisters(int register1, int register2) {
+  void xorRegisters(int register1, int register2) {
     registers[register1] ^= registers[register2];
   }
 
   // 8xy4 - ADD Vx, Vy
-  private void addRegisters(int register1, int register2) {
+  void addRegisters(int register1, int register2) {
     int vx = getRegister(register1);
     int vy = getRegister(register2);
 
@@ -241,7 +327,7 @@ public class CPU {
   }
 
   // 8xy5 - SUB Vx, Vy
-  private void subtractRegisterVYFromVX(int register1, int register2) {
+  void subtractRegisterVYFromVX(int register1, int register2) {
     int vx = getRegister(register1);
     int vy = getRegister(register2);
 
@@ -250,7 +336,7 @@ public class CPU {
   }
 
   // 8xy6 - SHR Vx {, Vy}
-  private void rightShiftRegister(int register) {
+  void rightShiftRegister(int register) {
     int registerValue = getRegister(register);
 
     setRegister(0xF, (registerValue & 0x1) == 0x1 ? 0x01 : 0x00);
@@ -258,7 +344,7 @@ public class CPU {
   }
 
   // 8xy7 - SUBN Vx, Vy
-  private void subtractRegisterVXFromVY(int register1, int register2) {
+  void subtractRegisterVXFromVY(int register1, int register2) {
     int vx = getRegister(register1);
     int vy = getRegister(register2);
 
@@ -267,7 +353,7 @@ public class CPU {
   }
 
   // 8xyE - SHL Vx {, Vy}
-  private void leftShiftRegister(int register) {
+  void leftShiftRegister(int register) {
     int registerValue = getRegister(register);
 
     setRegister(0xF, (registerValue & 0x80) == 0x80 ? 0x01 : 0x00);
@@ -275,87 +361,83 @@ public class CPU {
   }
 
   // 9xy0 - SNE Vx, Vy
-  private void skipInstructionIfRegisterNotEqualToOtherRegister(int register1, int register2) {
+  void skipInstructionIfRegisterNotEqualToOtherRegister(int register1, int register2) {
     if (getRegister(register1) != getRegister(register2)) {
-      programCounter += 2;
+      skipInstruction();
     }
   }
 
   // Annn - LD I, addr
-  private void setIndexRegister(int address) {
+  void setIndexRegister(int address) {
     indexRegister = address;
   }
 
   // Bnnn - JP V0, addr
-  private void jumpToAddressPlusV0(int address) {
-    programCounter = address + getRegister(0x0);
+  void jumpToAddressPlusV0(int address) {
+    programCounter = (address + getRegister(0x0)) & ADDRESS_MASK;
   }
 
   // Cxkk - RND Vx, byte
-  private void setRegisterToRandomNumber(int register, int andValue) {
-    int randomNumber = randomNumberGenerator.nextInt(256) & andValue;
+  void setRegisterToRandomNumber(int register, int andValue) {
+    int randomNumber = randomNumberGenerator.nextByte() & andValue;
     setRegister(register, randomNumber);
   }
 
   // Dxyn - DRW Vx, Vy, nibble
-  private void drawSprite(int xRegister, int yRegister, int numRows) {
-    int x = getRegister(xRegister) % 64;
-    int y = getRegister(yRegister) % 32;
+  void drawSprite(int xRegister, int yRegister, int numRows) {
+    int x = getRegister(xRegister) % screen.getWidth();
+    int y = getRegister(yRegister) % screen.getHeight();
 
-    setRegister(0xF, 0);
+    int numVisibleRows = countVisibleSpriteRows(yRegister, numRows);
+    boolean collision = false;
 
-    for (int rowIndex = 0; rowIndex < numRows; rowIndex++) {
+    for (int rowIndex = 0; rowIndex < numVisibleRows; rowIndex++) {
       byte sprite = memory.getByte(indexRegister + rowIndex);
 
-      int screenY = y + rowIndex;
-
-      for (int bitIndex = 0; bitIndex < 8; bitIndex++) {
-        int screenX = x + bitIndex;
-
-        boolean previousPixel = screen.getPixel(screenX, screenY);
-        boolean newPixel = (sprite >> (7-bitIndex) & 1) == 0x1;
-
-        screen.setPixel(screenX, screenY, !previousPixel && newPixel);
-
-        if(previousPixel && newPixel){
-          setRegister(0xF, 0x01);
-        }
+      collision |= screen.drawSpriteRow(x, y + rowIndex, sprite);
+    }
 
-        if (screenX == screen.getWidth() - 1) {
-          break;
-        }
-      }
+    setRegister(0xF, collision ? 0x01 : 0x00);
 
-      if (screenY == screen.getHeight() - 1) {
-        break;
-      }
+    numSpriteDraws++;
+    if (collision) {
+      numSpriteCollisions++;
     }
   }
 
+  /**
+   * Returns how many rows of a sprite drawn at the y coordinate in the given register are on the
+   * screen. Rows past the bottom edge are clipped, and their sprite bytes are never read.
+   */
+  int countVisibleSpriteRows(int yRegister, int numRows) {
+    int y = getRegister(yRegister) % screen.getHeight();
+    return Math.min(numRows, screen.getHeight() - y);
+  }
+
   // Fx07 - LD Vx, DT
-  private void loadDelayTimer(int register) {
+  void loadDelayTimer(int register) {
     setRegister(register, delayTimer);
   }
 
   // Fx15 - LD DT, Vx
-  private void setDelayTimer(int register) {
+  void setDelayTimer(int register) {
     delayTimer = getRegister(register);
   }
 
   // Fx1E - ADD I, Vx
-  private void addRegisterToIndex(int register) {
+  void addRegisterToIndex(int register) {
     indexRegister += getRegister(register);
   }
 
   // Fx29 - LD F, Vx
-  private void setIndexToFontSpriteAddress(int register) {
+  void setIndexToFontSpriteAddress(int register) {
     int fontSprite = registers[register] & 0xFF;
 
     indexRegister = Memory.FONT_START_ADDRESS + (5 * fontSprite);
   }
 
   // Fx33 - LD B, Vx
-  private void storeBCDRepresentationAtIndex(int register) {
+  void storeBCDRepresentationAtIndex(int register) {
     int value = getRegister(register);
 
     int hundreds = (value / 100);
@@ -364,29 +446,66 @@ public class CPU {
     int tens = (value / 10);
     value -= tens * 10;
 
-    memory.setByte(indexRegister, (byte) hundreds);
-    memory.setByte(indexRegister + 1, (byte) tens);
-    memory.setByte(indexRegister + 2, (byte) value);
+    bcdDigits[0] = (byte) hundreds;
+    bcdDigits[1] = (byte) tens;
+    bcdDigits[2] = (byte) value;
+    memory.writeBytes(indexRegister, bcdDigits, 0, bcdDigits.length);
   }
 
   // Fx55 - LD [I], Vx
-  private void storeRegistersAtIndex(int endRegister) {
-    for (int i = 0; i <= endRegister; i++) {
-      memory.setByte(indexRegister + i, (byte) getRegister(i));
-    }
+  void storeRegistersAtIndex(int endRegister) {
+    memory.writeBytes(indexRegister, registers, 0, endRegister + 1);
   }
 
   // Fx65 - LD Vx, [I]
-  private void loadRegistersAtIndex(int endRegister) {
-    for (int i = 0; i <= endRegister; i++) {
-      setRegister(i, memory.getByte(indexRegister + i));
-    }
+  void loadRegistersAtIndex(int endRegister) {
+    memory.readBytes(indexRegister, registers, 0, endRegister + 1);
   }
 
   public int getProgramCounter() {
     return programCounter;
   }
 
+  void setProgramCounter(int programCounter) {
+    this.programCounter = programCounter & ADDRESS_MASK;
+  }
+
+  /**
+   * Returns the address of the instruction being executed, or of the next one between
+   * instructions. Unlike the program counter, which moves past an instruction as soon as it has
+   * been fetched, this may be read from any thread. It is only kept up to date while publishing is
+   * turned on.
+   */
+  public int getCurrentAddress() {
+    return currentAddress.get();
+  }
+
+  void setCurrentAddress(int address) {
+    if (publishingCurrentAddress) {
+      currentAddress.lazySet(address);
+    }
+  }
+
+  /**
+   * Turns publishing of the current address on or off. It is off by default so that executing an
+   * instruction costs no more than a check of this flag when no sampler is attached. The flag is
+   * read by the emulator thread without synchronization, so a change may not be seen before the
+   * running frame ends.
+   */
+  public void setPublishingCurrentAddress(boolean publishingCurrentAddress) {
+    this.publishingCurrentAddress = publishingCurrentAddress;
+    if (publishingCurrentAddress) {
+      currentAddress.lazySet(programCounter);
+    }
+  }
+
+  /**
+   * The register file itself, for engines that run instructions without going through the CPU.
+   */
+  byte[] getRegisters() {
+    return registers;
+  }
+
   public int getRegister(int index) {
     return registers[index] & 0xFF;
   }
@@ -395,11 +514,57 @@ public class CPU {
     return indexRegister;
   }
 
+  /**
+   * Returns a copy of the call stack with the most recent return address first. Changes to the
+   * returned deque do not affect the CPU.
+   */
   public Deque<Integer> getStack() {
-    return stack;
+    Deque<Integer> stackCopy = new ArrayDeque<>(stackPointer);
+    for (int i = 0; i < stackPointer; i++) {
+      stackCopy.push(stack[i]);
+    }
+    return stackCopy;
   }
 
   public int getDelayTimer() {
     return delayTimer;
   }
+
+  /**
+   * Returns the number of sprites drawn since the CPU was created. Not part of the machine state.
+   */
+  public long getNumSpriteDraws() {
+    return numSpriteDraws;
+  }
+
+  /**
+   * Returns the number of sprite draws that collided since the CPU was created.
+   */
+  public long getNumSpriteCollisions() {
+    return numSpriteCollisions;
+  }
+
+  public Dispatch getDispatch() {
+    return dispatch;
+  }
+
+  public CPUState snapshot() {
+    return new CPUState(registers.clone(), programCounter, indexRegister, delayTimer,
+        Arrays.copyOf(stack, stackPointer), randomNumberGenerator.getState());
+  }
+
+  /**
+   * Puts the CPU back into a saved state. The random number generator is put back too, so restoring
+   * the same state twice gives the same random numbers.
+   */
+  public void restore(CPUState state) {
+    System.arraycopy(state.getRegisters(), 0, registers, 0, registers.length);
+    programCounter = state.getProgramCounter();
+    currentAddress.lazySet(programCounter);
+    indexRegister = state.getIndexRegister();
+    delayTimer = state.getDelayTimer();
+    stackPointer = state.getStack().length;
+    System.arraycopy(state.getStack(), 0, stack, 0, stackPointer);
+    randomNumberGenerator.setState(state.getRandomState());
+  }
 }
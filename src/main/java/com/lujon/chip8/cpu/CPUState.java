@@ -0,0 +1,83 @@
+package com.lujon.chip8.cpu;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Registers, timers, call stack and random number generator state of a {@link CPU} at one point in
+ * time.
+ */
+public class CPUState {
+
+  private final byte[] registers;
+  private final int programCounter;
+  private final int indexRegister;
+  private final int delayTimer;
+  private final int[] stack;
+  private final long randomState;
+
+  CPUState(byte[] registers, int programCounter, int indexRegister, int delayTimer, int[] stack,
+      long randomState) {
+    this.registers = registers;
+    this.programCounter = programCounter;
+    this.indexRegister = indexRegister;
+    this.delayTimer = delayTimer;
+    this.stack = stack;
+    this.randomState = randomState;
+  }
+
+  byte[] getRegisters() {
+    return registers;
+  }
+
+  public int getProgramCounter() {
+    return programCounter;
+  }
+
+  public int getIndexRegister() {
+    return indexRegister;
+  }
+
+  public int getDelayTimer() {
+    return delayTimer;
+  }
+
+  int[] getStack() {
+    return stack;
+  }
+
+  long getRandomState() {
+    return randomState;
+  }
+
+  public int getSerializedSize() {
+    return registers.length + 3 * Integer.BYTES + 1 + stack.length * Integer.BYTES
+        + Long.BYTES;
+  }
+
+  public void writeTo(ByteBuffer buffer) {
+    buffer.put(registers);
+    buffer.putInt(programCounter);
+    buffer.putInt(indexRegister);
+    buffer.putInt(delayTimer);
+    buffer.put((byte) stack.length);
+    for (int returnAddress : stack) {
+      buffer.putInt(returnAddress);
+    }
+    buffer.putLong(randomState);
+  }
+
+  public static CPUState readFrom(ByteBuffer buffer) {
+    byte[] registers = new byte[16];
+    buffer.get(registers);
+    int programCounter = buffer.getInt();
+    int indexRegister = buffer.getInt();
+    int delayTimer = buffer.getInt();
+    int[] stack = new int[buffer.get()];
+    for (int i = 0; i < stack.length; i++) {
+      stack[i] = buffer.getInt();
+    }
+    long randomState = buffer.getLong();
+
+    return new CPUState(registers, programCounter, indexRegister, delayTimer, stack, randomState);
+  }
+}
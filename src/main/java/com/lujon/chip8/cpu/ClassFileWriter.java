@@ -0,0 +1,302 @@
+package com.lujon.chip8.cpu;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes the bytes of a small class file: one interface, one field, a constructor and one method,
+ * whose code is written instruction by instruction. Class files are written in version 49, which
+ * does not need stack map frames, so branches need nothing more than a label to jump to.
+ */
+class ClassFileWriter {
+
+  static final int ICONST_0 = 0x03;
+  static final int BIPUSH = 0x10;
+  static final int SIPUSH = 0x11;
+  static final int ILOAD = 0x15;
+  static final int ALOAD = 0x19;
+  static final int AALOAD = 0x32;
+  static final int BALOAD = 0x33;
+  static final int ISTORE = 0x36;
+  static final int ASTORE = 0x3A;
+  static final int BASTORE = 0x54;
+  static final int IADD = 0x60;
+  static final int ISUB = 0x64;
+  static final int IMUL = 0x68;
+  static final int ISHL = 0x78;
+  static final int ISHR = 0x7A;
+  static final int IUSHR = 0x7C;
+  static final int IAND = 0x7E;
+  static final int IOR = 0x80;
+  static final int IXOR = 0x82;
+  static final int IINC = 0x84;
+  static final int IF_ICMPEQ = 0x9F;
+  static final int IF_ICMPNE = 0xA0;
+  static final int IF_ICMPGE = 0xA2;
+  static final int GOTO = 0xA7;
+  static final int IRETURN = 0xAC;
+  static final int RETURN = 0xB1;
+  static final int GETFIELD = 0xB4;
+  static final int PUTFIELD = 0xB5;
+  static final int INVOKEVIRTUAL = 0xB6;
+  static final int INVOKESPECIAL = 0xB7;
+
+  private static final int CLASS_FILE_VERSION = 49;
+  private static final int ACC_PRIVATE = 0x0002;
+  private static final int ACC_PUBLIC = 0x0001;
+  private static final int ACC_FINAL = 0x0010;
+  private static final int ACC_SUPER = 0x0020;
+
+  private final ByteVector constantPool = new ByteVector();
+  private final Map<String, Integer> constants = new HashMap<>();
+  private int numConstants = 1;
+  private final String className;
+  private final String interfaceName;
+  private final ByteVector methods = new ByteVector();
+  private int numMethods;
+  private String fieldName;
+  private String fieldDescriptor;
+
+  // The code of the method being written
+  private ByteVector code;
+  private int[] labelOffsets;
+  private int numLabels;
+  private ByteVector branches;
+
+  ClassFileWriter(String className, String interfaceName) {
+    this.className = className;
+    this.interfaceName = interfaceName;
+  }
+
+  /**
+   * Declares the one field of the class, a private final field set by the constructor from the
+   * constructor's only argument.
+   */
+  void setField(String name, String descriptor) {
+    this.fieldName = name;
+    this.fieldDescriptor = descriptor;
+
+    beginMethod();
+    emitLocal(ALOAD, 0);
+    emitMemberInstruction(INVOKESPECIAL, "java/lang/Object", "<init>", "()V");
+    emitLocal(ALOAD, 0);
+    emitLocal(ALOAD, 1);
+    emitMemberInstruction(PUTFIELD, className, name, descriptor);
+    emit(RETURN);
+    endMethod("<init>", "(" + descriptor + ")V", 2, 2);
+  }
+
+  void beginMethod() {
+    code = new ByteVector();
+    labelOffsets = new int[16];
+    numLabels = 0;
+    branches = new ByteVector();
+  }
+
+  /**
+   * Finishes the method being written as a public method of the class.
+   */
+  void endMethod(String name, String descriptor, int maxStack, int maxLocals) {
+    resolveBranches();
+
+    methods.putShort(ACC_PUBLIC);
+    methods.putShort(utf8(name));
+    methods.putShort(utf8(descriptor));
+    methods.putShort(1);
+    methods.putShort(utf8("Code"));
+    methods.putInt(12 + code.length);
+    methods.putShort(maxStack);
+    methods.putShort(maxLocals);
+    methods.putInt(code.length);
+    methods.putBytes(code.data, code.length);
+    methods.putShort(0);
+    methods.putShort(0);
+    numMethods++;
+    code = null;
+  }
+
+  int newLabel() {
+    if (numLabels == labelOffsets.length) {
+      labelOffsets = Arrays.copyOf(labelOffsets, numLabels * 2);
+    }
+    labelOffsets[numLabels] = -1;
+    return numLabels++;
+  }
+
+  void placeLabel(int label) {
+    labelOffsets[label] = code.length;
+  }
+
+  void emit(int opcode) {
+    code.putByte(opcode);
+  }
+
+  void emitLocal(int opcode, int local) {
+    code.putByte(opcode);
+    code.putByte(local);
+  }
+
+  void emitIncrement(int local, int increment) {
+    code.putByte(IINC);
+    code.putByte(local);
+    code.putByte(increment);
+  }
+
+  void emitPush(int value) {
+    if (value >= 0 && value <= 5) {
+      code.putByte(ICONST_0 + value);
+    } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+      code.putByte(BIPUSH);
+      code.putByte(value);
+    } else {
+      code.putByte(SIPUSH);
+      code.putShort(value);
+    }
+  }
+
+  void emitJump(int opcode, int label) {
+    branches.putInt(code.length);
+    branches.putInt(label);
+    code.putByte(opcode);
+    code.putShort(0);
+  }
+
+  void emitMemberInstruction(int opcode, String owner, String name, String descriptor) {
+    int tag = opcode == GETFIELD || opcode == PUTFIELD ? 9 : 10;
+    code.putByte(opcode);
+    code.putShort(member(tag, owner, name, descriptor));
+  }
+
+  byte[] toByteArray() {
+    int thisClass = classConstant(className);
+    int superClass = classConstant("java/lang/Object");
+    int interfaceClass = classConstant(interfaceName);
+    int fieldNameIndex = utf8(fieldName);
+    int fieldDescriptorIndex = utf8(fieldDescriptor);
+
+    ByteVector classFile = new ByteVector();
+    classFile.putInt(0xCAFEBABE);
+    classFile.putShort(0);
+    classFile.putShort(CLASS_FILE_VERSION);
+    classFile.putShort(numConstants);
+    classFile.putBytes(constantPool.data, constantPool.length);
+    classFile.putShort(ACC_FINAL | ACC_SUPER);
+    classFile.putShort(thisClass);
+    classFile.putShort(superClass);
+    classFile.putShort(1);
+    classFile.putShort(interfaceClass);
+    classFile.putShort(1);
+    classFile.putShort(ACC_PRIVATE | ACC_FINAL);
+    classFile.putShort(fieldNameIndex);
+    classFile.putShort(fieldDescriptorIndex);
+    classFile.putShort(0);
+    classFile.putShort(numMethods);
+    classFile.putBytes(methods.data, methods.length);
+    classFile.putShort(0);
+
+    return Arrays.copyOf(classFile.data, classFile.length);
+  }
+
+  private void resolveBranches() {
+    for (int i = 0; i < branches.length; i += 8) {
+      int offset = branches.getInt(i);
+      int target = labelOffsets[branches.getInt(i + 4)];
+      if (target < 0) {
+        throw new IllegalStateException("Jump to a label that was never placed");
+      }
+      code.setShort(offset + 1, target - offset);
+    }
+  }
+
+  private int utf8(String value) {
+    Integer index = constants.get("Utf8:" + value);
+    if (index == null) {
+      constantPool.putByte(1);
+      constantPool.putShort(value.length());
+      for (int i = 0; i < value.length(); i++) {
+        constantPool.putByte(value.charAt(i));
+      }
+      index = addConstant("Utf8:" + value);
+    }
+    return index;
+  }
+
+  private int classConstant(String name) {
+    Integer index = constants.get("Class:" + name);
+    if (index == null) {
+      int nameIndex = utf8(name);
+      constantPool.putByte(7);
+      constantPool.putShort(nameIndex);
+      index = addConstant("Class:" + name);
+    }
+    return index;
+  }
+
+  private int member(int tag, String owner, String name, String descriptor) {
+    String key = tag + ":" + owner + "." + name + descriptor;
+    Integer index = constants.get(key);
+    if (index == null) {
+      int ownerIndex = classConstant(owner);
+      int nameIndex = utf8(name);
+      int descriptorIndex = utf8(descriptor);
+      constantPool.putByte(12);
+      constantPool.putShort(nameIndex);
+      constantPool.putShort(descriptorIndex);
+      int nameAndTypeIndex = addConstant("NameAndType:" + key);
+
+      constantPool.putByte(tag);
+      constantPool.putShort(ownerIndex);
+      constantPool.putShort(nameAndTypeIndex);
+      index = addConstant(key);
+    }
+    return index;
+  }
+
+  private int addConstant(String key) {
+    constants.put(key, numConstants);
+    return numConstants++;
+  }
+
+  /**
+   * A growable big-endian byte array.
+   */
+  private static class ByteVector {
+
+    private byte[] data = new byte[256];
+    private int length;
+
+    void putByte(int value) {
+      if (length == data.length) {
+        data = Arrays.copyOf(data, length * 2);
+      }
+      data[length++] = (byte) value;
+    }
+
+    void putShort(int value) {
+      putByte(value >> 8);
+      putByte(value);
+    }
+
+    void putInt(int value) {
+      putShort(value >> 16);
+      putShort(value);
+    }
+
+    void putBytes(byte[] bytes, int numBytes) {
+      for (int i = 0; i < numBytes; i++) {
+        putByte(bytes[i]);
+      }
+    }
+
+    void setShort(int offset, int value) {
+      data[offset] = (byte) (value >> 8);
+      data[offset + 1] = (byte) value;
+    }
+
+    int getInt(int offset) {
+      return (data[offset] & 0xFF) << 24 | (data[offset + 1] & 0xFF) << 16
+          | (data[offset + 2] & 0xFF) << 8 | data[offset + 3] & 0xFF;
+    }
+  }
+}
@@ -0,0 +1,50 @@
+package com.lujon.chip8.cpu;
+
+/**
+ * Why and where a {@link Debugger} stopped execution. Execution stops before the instruction that
+ * triggered the break.
+ */
+public class DebugBreak {
+
+  public enum Reason {
+    BREAKPOINT,
+    READ_WATCHPOINT,
+    WRITE_WATCHPOINT,
+    CONDITION
+  }
+
+  private final Reason reason;
+  private final int programCounter;
+  private final int address;
+
+  DebugBreak(Reason reason, int programCounter, int address) {
+    this.reason = reason;
+    this.programCounter = programCounter;
+    this.address = address;
+  }
+
+  public Reason getReason() {
+    return reason;
+  }
+
+  /**
+   * Returns the address of the instruction that has not been executed yet.
+   */
+  public int getProgramCounter() {
+    return programCounter;
+  }
+
+  /**
+   * Returns the watched memory address the instruction would access, or the program counter for
+   * other breaks.
+   */
+  public int getAddress() {
+    return address;
+  }
+
+  @Override
+  public String toString() {
+    return reason + " at " + Integer.toHexString(programCounter)
+        + (address != programCounter ? " accessing " + Integer.toHexString(address) : "");
+  }
+}
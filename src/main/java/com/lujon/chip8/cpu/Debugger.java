@@ -0,0 +1,242 @@
+package com.lujon.chip8.cpu;
+
+import com.lujon.chip8.memory.Memory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Breakpoints on program counter addresses, watchpoints on memory addresses and breakpoints on
+ * conditions over the CPU state. Instructions are checked before they are executed, one at a time,
+ * so the emulator only runs through the debugger while it is armed and takes its normal engine
+ * otherwise.
+ *
+ * <p>Memory accesses are predicted from the instruction and the index register rather than
+ * intercepted in {@link Memory}, which keeps memory accesses free of checks. Reads are sprite data
+ * for Dxyn and Fx65; writes are Fx33 and Fx55. Instruction fetches are not watched.
+ */
+public class Debugger {
+
+  private static final int WATCH_READ = 1;
+  private static final int WATCH_WRITE = 2;
+  private static final int ADDRESS_MASK = Memory.SIZE - 1;
+
+  public enum WatchType {
+    READ(WATCH_READ),
+    WRITE(WATCH_WRITE),
+    READ_WRITE(WATCH_READ | WATCH_WRITE);
+
+    private final int flags;
+
+    WatchType(int flags) {
+      this.flags = flags;
+    }
+  }
+
+  private final CPU cpu;
+  private final boolean[] breakpoints = new boolean[Memory.SIZE];
+  private final byte[] watchpoints = new byte[Memory.SIZE];
+  private final List<Predicate<CPU>> conditions = new ArrayList<>();
+  private int numBreakpoints;
+  private int numWatchpoints;
+  private DebugBreak lastBreak;
+  private boolean skipChecksOnce;
+
+  public Debugger(CPU cpu) {
+    this.cpu = cpu;
+  }
+
+  /**
+   * Whether any breakpoint, watchpoint or condition is set.
+   */
+  public boolean isArmed() {
+    return numBreakpoints > 0 || numWatchpoints > 0 || !conditions.isEmpty();
+  }
+
+  public void addBreakpoint(int address) {
+    if (!breakpoints[address & ADDRESS_MASK]) {
+      breakpoints[address & ADDRESS_MASK] = true;
+      numBreakpoints++;
+    }
+  }
+
+  public void removeBreakpoint(int address) {
+    if (breakpoints[address & ADDRESS_MASK]) {
+      breakpoints[address & ADDRESS_MASK] = false;
+      numBreakpoints--;
+    }
+  }
+
+  public void addWatchpoint(int address, WatchType type) {
+    if (watchpoints[address & ADDRESS_MASK] == 0) {
+      numWatchpoints++;
+    }
+    watchpoints[address & ADDRESS_MASK] |= type.flags;
+  }
+
+  public void removeWatchpoint(int address) {
+    if (watchpoints[address & ADDRESS_MASK] != 0) {
+      watchpoints[address & ADDRESS_MASK] = 0;
+      numWatchpoints--;
+    }
+  }
+
+  /**
+   * Breaks before any instruction for which the condition holds.
+   */
+  public void addCondition(Predicate<CPU> condition) {
+    conditions.add(condition);
+  }
+
+  public void removeCondition(Predicate<CPU> condition) {
+    conditions.remove(condition);
+  }
+
+  /**
+   * Breaks when register Vx takes the value, but not again until it has had another value in
+   * between. Returns the condition, which can be removed with {@link #removeCondition}.
+   */
+  public Predicate<CPU> addRegisterBreakpoint(int register, int value) {
+    Predicate<CPU> condition = new Predicate<>() {
+      private boolean hadValue = cpu.getRegister(register) == value;
+
+      @Override
+      public boolean test(CPU cpu) {
+        boolean hasValue = cpu.getRegister(register) == value;
+        boolean becameValue = hasValue && !hadValue;
+        hadValue = hasValue;
+        return becameValue;
+      }
+    };
+    addCondition(condition);
+    return condition;
+  }
+
+  public void clear() {
+    for (int address = 0; address < Memory.SIZE; address++) {
+      breakpoints[address] = false;
+      watchpoints[address] = 0;
+    }
+    numBreakpoints = 0;
+    numWatchpoints = 0;
+    conditions.clear();
+  }
+
+  /**
+   * Whether execution stopped at a break and has not been resumed.
+   */
+  public boolean isPaused() {
+    return lastBreak != null;
+  }
+
+  /**
+   * Returns the break execution stopped at, or null if it has not stopped since it was resumed.
+   */
+  public DebugBreak getLastBreak() {
+    return lastBreak;
+  }
+
+  /**
+   * Lets execution continue. The instruction execution stopped at is executed without being
+   * checked again.
+   */
+  public void resume() {
+    if (lastBreak != null) {
+      lastBreak = null;
+      skipChecksOnce = true;
+    }
+  }
+
+  /**
+   * Executes one instruction without checking it, whether paused or not.
+   */
+  public void step() {
+    cpu.executeInstruction(cpu.fetchInstruction());
+  }
+
+  /**
+   * Executes up to the given number of instructions, stopping before the first one that hits a
+   * breakpoint, watchpoint or condition. Does nothing while paused.
+   *
+   * @return the number of instructions executed
+   */
+  public int execute(int numInstructions) {
+    if (isPaused()) {
+      return 0;
+    }
+
+    for (int i = 0; i < numInstructions; i++) {
+      Instruction instruction = cpu.peekInstruction();
+
+      if (skipChecksOnce) {
+        skipChecksOnce = false;
+      } else {
+        lastBreak = check(instruction);
+        if (lastBreak != null) {
+          return i;
+        }
+      }
+
+      cpu.executeInstruction(cpu.fetchInstruction());
+    }
+    return numInstructions;
+  }
+
+  private DebugBreak check(Instruction instruction) {
+    int programCounter = cpu.getProgramCounter();
+
+    if (breakpoints[programCounter & ADDRESS_MASK]) {
+      return new DebugBreak(DebugBreak.Reason.BREAKPOINT, programCounter, programCounter);
+    }
+
+    if (numWatchpoints > 0) {
+      DebugBreak watchpointBreak = checkWatchpoints(instruction, programCounter);
+      if (watchpointBreak != null) {
+        return watchpointBreak;
+      }
+    }
+
+    for (int i = 0; i < conditions.size(); i++) {
+      if (conditions.get(i).test(cpu)) {
+        return new DebugBreak(DebugBreak.Reason.CONDITION, programCounter, programCounter);
+      }
+    }
+
+    return null;
+  }
+
+  private DebugBreak checkWatchpoints(Instruction instruction, int programCounter) {
+    OpcodeFamily family = instruction.getFamily();
+    if (family == null) {
+      return null;
+    }
+
+    switch (family) {
+      case DRW:
+        // Rows clipped at the bottom of the screen are not read
+        int numRows = cpu.countVisibleSpriteRows(instruction.getY(), instruction.getN());
+        return checkRange(programCounter, numRows, WATCH_READ);
+      case LD_VX_I:
+        return checkRange(programCounter, instruction.getX() + 1, WATCH_READ);
+      case LD_I_VX:
+        return checkRange(programCounter, instruction.getX() + 1, WATCH_WRITE);
+      case LD_B_VX:
+        return checkRange(programCounter, 3, WATCH_WRITE);
+      default:
+        return null;
+    }
+  }
+
+  private DebugBreak checkRange(int programCounter, int length, int accessFlag) {
+    for (int i = 0; i < length; i++) {
+      int address = (cpu.getIndexRegister() + i) & ADDRESS_MASK;
+      if ((watchpoints[address] & accessFlag) != 0) {
+        DebugBreak.Reason reason = accessFlag == WATCH_READ
+            ? DebugBreak.Reason.READ_WATCHPOINT
+            : DebugBreak.Reason.WRITE_WATCHPOINT;
+        return new DebugBreak(reason, programCounter, address);
+      }
+    }
+    return null;
+  }
+}
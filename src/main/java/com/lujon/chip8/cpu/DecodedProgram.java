@@ -0,0 +1,32 @@
+package com.lujon.chip8.cpu;
+
+import com.lujon.chip8.memory.Memory;
+
+/**
+ * The instructions at every even address of a freshly loaded memory, decoded ahead of time. A
+ * decoded program holds no per-CPU state, so one can be shared by all CPUs running the same ROM.
+ */
+public class DecodedProgram {
+
+  private final Instruction[] instructions;
+
+  private DecodedProgram(Instruction[] instructions) {
+    this.instructions = instructions;
+  }
+
+  public static DecodedProgram decode(Memory memory) {
+    Instruction[] instructions = new Instruction[Memory.SIZE / 2];
+
+    for (int slot = 0; slot < instructions.length; slot++) {
+      int address = slot * 2;
+      int instruction = (memory.getByte(address) & 0xFF) << 8 | memory.getByte(address + 1) & 0xFF;
+      instructions[slot] = new Instruction(instruction);
+    }
+
+    return new DecodedProgram(instructions);
+  }
+
+  Instruction getInstruction(int address) {
+    return instructions[address >> 1];
+  }
+}
@@ -0,0 +1,18 @@
+package com.lujon.chip8.cpu;
+
+/**
+ * How the {@link CPU} selects the implementation of an instruction.
+ */
+public enum Dispatch {
+
+  /**
+   * Nested switch statements on the opcode and its sub-opcodes.
+   */
+  SWITCH,
+
+  /**
+   * A handler looked up once per decoded instruction from a table indexed by the full 16-bit
+   * instruction.
+   */
+  TABLE
+}
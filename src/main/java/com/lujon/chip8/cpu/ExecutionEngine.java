@@ -0,0 +1,10 @@
+package com.lujon.chip8.cpu;
+
+/**
+ * Executes instructions from memory on a {@link CPU}. The CPU itself interprets one instruction at
+ * a time; other engines may execute larger units but must leave the CPU in the same state.
+ */
+public interface ExecutionEngine {
+
+  void execute(int numInstructions);
+}
@@ -0,0 +1,126 @@
+package com.lujon.chip8.cpu;
+
+/**
+ * Skips loops that provably do nothing until the next timer tick, like a jump to itself or a loop
+ * polling the delay timer. A loop is idle if one pass through it only uses instructions without
+ * side effects outside the registers and leaves the registers and the index register as they
+ * were. The delay timer only changes between frames, so every further pass in the same frame is
+ * identical and need not be executed.
+ */
+public class IdleLoopDetector {
+
+  private static final int MAX_LOOP_LENGTH = 8;
+  private static final int MAX_PASSES = 2;
+
+  private final CPU cpu;
+  private final int[] loopStartRegisters = new int[16];
+  private int loopStartIndexRegister;
+
+  public IdleLoopDetector(CPU cpu) {
+    this.cpu = cpu;
+  }
+
+  /**
+   * Executes up to the given number of instructions as long as they could be part of an idle loop.
+   * If the CPU turns out to be in one, the rest of the instructions are skipped, leaving the CPU in
+   * exactly the state executing them would have.
+   *
+   * @return the number of instructions executed or skipped, which the caller should not execute
+   *     again
+   */
+  public int fastForward(int numInstructions) {
+    int loopStartAddress = cpu.getProgramCounter();
+    saveLoopStartState();
+
+    // The first pass may still be setting registers, like the one the delay timer is loaded into
+    int maxSteps = Math.min(numInstructions, MAX_PASSES * MAX_LOOP_LENGTH);
+    int steps = 0;
+    int passStartStep = 0;
+    int numPasses = 0;
+
+    while (steps < maxSteps) {
+      Instruction instruction = cpu.fetchInstruction();
+      cpu.executeInstruction(instruction);
+      steps++;
+
+      if (!isSideEffectFree(instruction.getFamily())) {
+        return steps;
+      }
+
+      if (cpu.getProgramCounter() == loopStartAddress) {
+        if (isLoopStartState()) {
+          // Only the last, partial pass can leave the CPU anywhere but at the start of the loop
+          cpu.execute((numInstructions - steps) % (steps - passStartStep));
+          return numInstructions;
+        }
+
+        if (++numPasses == MAX_PASSES) {
+          return steps;
+        }
+        saveLoopStartState();
+        passStartStep = steps;
+      } else if (steps - passStartStep == MAX_LOOP_LENGTH) {
+        return steps;
+      }
+    }
+
+    return steps;
+  }
+
+  private void saveLoopStartState() {
+    loopStartIndexRegister = cpu.getIndexRegister();
+    for (int register = 0; register < loopStartRegisters.length; register++) {
+      loopStartRegisters[register] = cpu.getRegister(register);
+    }
+  }
+
+  private boolean isLoopStartState() {
+    if (cpu.getIndexRegister() != loopStartIndexRegister) {
+      return false;
+    }
+    for (int register = 0; register < loopStartRegisters.length; register++) {
+      if (cpu.getRegister(register) != loopStartRegisters[register]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Whether the instruction only reads memory, registers and the delay timer and only writes
+   * registers. Drawing, random numbers, subroutines, timer writes and memory writes are excluded.
+   */
+  private static boolean isSideEffectFree(OpcodeFamily family) {
+    if (family == null) {
+      return false;
+    }
+
+    switch (family) {
+      case JP:
+      case SE_VX_BYTE:
+      case SNE_VX_BYTE:
+      case SE_VX_VY:
+      case LD_VX_BYTE:
+      case ADD_VX_BYTE:
+      case LD_VX_VY:
+      case OR:
+      case AND:
+      case XOR:
+      case ADD_VX_VY:
+      case SUB:
+      case SHR:
+      case SUBN:
+      case SHL:
+      case SNE_VX_VY:
+      case LD_I:
+      case JP_V0:
+      case LD_VX_DT:
+      case ADD_I_VX:
+      case LD_F_VX:
+      case LD_VX_I:
+        return true;
+      default:
+        return false;
+    }
+  }
+}
@@ -3,33 +3,57 @@ package com.lujon.chip8.cpu;
 class Instruction {
 
   private final int instruction;
+  private final int opCode;
+  private final int x;
+  private final int y;
+  private final int n;
+  private final int nn;
+  private final int nnn;
+  private final InstructionHandler handler;
+  private final OpcodeFamily family;
 
   Instruction(int instruction) {
     this.instruction = instruction;
+    this.opCode = (instruction & 0xF000) >> 12;
+    this.x = (instruction & 0x0F00) >> 8;
+    this.y = (instruction & 0x00F0) >> 4;
+    this.n = instruction & 0x000F;
+    this.nn = instruction & 0x00FF;
+    this.nnn = instruction & 0x0FFF;
+    this.handler = InstructionTable.getHandler(instruction);
+    this.family = OpcodeFamily.of(instruction);
   }
 
   int getOpCode() {
-    return (instruction & 0xF000) >> 12;
+    return opCode;
   }
 
   int getX() {
-    return (instruction & 0x0F00) >> 8;
+    return x;
   }
 
   int getY() {
-    return (instruction & 0x00F0) >> 4;
+    return y;
   }
 
   int getN() {
-    return instruction & 0x000F;
+    return n;
   }
 
   int getNN() {
-    return instruction & 0x00FF;
+    return nn;
   }
 
   int getNNN() {
-    return instruction & 0x0FFF;
+    return nnn;
+  }
+
+  InstructionHandler getHandler() {
+    return handler;
+  }
+
+  OpcodeFamily getFamily() {
+    return family;
   }
 
   @Override
@@ -0,0 +1,42 @@
+package com.lujon.chip8.cpu;
+
+import com.lujon.chip8.memory.Memory;
+import com.lujon.chip8.memory.MemoryWriteListener;
+
+/**
+ * Decoded instructions indexed by the address they were fetched from. Only even addresses are
+ * cached, which covers all regular programs; instructions at odd addresses are decoded on every
+ * fetch. Entries are dropped when the memory they were decoded from is written to, so
+ * self-modifying programs keep working.
+ */
+class InstructionCache implements MemoryWriteListener {
+
+  private final Instruction[] instructions = new Instruction[Memory.SIZE / 2];
+
+  Instruction get(int address) {
+    if ((address & 1) != 0) {
+      return null;
+    }
+    return instructions[address >> 1];
+  }
+
+  void put(int address, Instruction instruction) {
+    if ((address & 1) == 0) {
+      instructions[address >> 1] = instruction;
+    }
+  }
+
+  void preload(DecodedProgram program) {
+    for (int slot = 0; slot < instructions.length; slot++) {
+      instructions[slot] = program.getInstruction(slot << 1);
+    }
+  }
+
+  @Override
+  public void onWrite(int address, int length) {
+    int lastSlot = Math.min((address + length - 1) >> 1, instructions.length - 1);
+    for (int slot = address >> 1; slot <= lastSlot; slot++) {
+      instructions[slot] = null;
+    }
+  }
+}
@@ -0,0 +1,7 @@
+package com.lujon.chip8.cpu;
+
+@FunctionalInterface
+interface InstructionHandler {
+
+  void execute(CPU cpu, Instruction instruction);
+}
@@ -0,0 +1,113 @@
+package com.lujon.chip8.cpu;
+
+/**
+ * Handlers for every 16-bit instruction, used by {@link Dispatch#TABLE}. Each handler does a single
+ * thing, so the handler resolved for a decoded instruction needs no further branching on the
+ * instruction's sub-opcodes.
+ */
+final class InstructionTable {
+
+  private static final InstructionHandler NOT_IMPLEMENTED = (cpu, instruction) -> {
+    throw new RuntimeException("Not implemented: " + instruction);
+  };
+
+  private static final InstructionHandler[] HANDLERS = new InstructionHandler[0x10000];
+
+  static {
+    for (int instruction = 0; instruction < HANDLERS.length; instruction++) {
+      HANDLERS[instruction] = resolveHandler(instruction);
+    }
+  }
+
+  private InstructionTable() {
+  }
+
+  static InstructionHandler getHandler(int instruction) {
+    return HANDLERS[instruction];
+  }
+
+  private static InstructionHandler resolveHandler(int instruction) {
+    int nn = instruction & 0x00FF;
+    int n = instruction & 0x000F;
+
+    switch ((instruction & 0xF000) >> 12) {
+      case 0x0:
+        switch (nn) {
+          case 0xE0:
+            return (cpu, i) -> cpu.clearScreen();
+          case 0xEE:
+            return (cpu, i) -> cpu.returnFromSubroutine();
+          default:
+            return NOT_IMPLEMENTED;
+        }
+      case 0x1:
+        return (cpu, i) -> cpu.jumpToAddress(i.getNNN());
+      case 0x2:
+        return (cpu, i) -> cpu.jumpToSubroutine(i.getNNN());
+      case 0x3:
+        return (cpu, i) -> cpu.skipInstructionIfRegisterEqualToValue(i.getX(), i.getNN());
+      case 0x4:
+        return (cpu, i) -> cpu.skipInstructionIfRegisterNotEqualToValue(i.getX(), i.getNN());
+      case 0x5:
+        return (cpu, i) -> cpu.skipInstructionIfRegisterEqualToOtherRegister(i.getX(), i.getY());
+      case 0x6:
+        return (cpu, i) -> cpu.setRegister(i.getX(), i.getNN());
+      case 0x7:
+        return (cpu, i) -> cpu.addToRegister(i.getX(), i.getNN());
+      case 0x8:
+        switch (n) {
+          case 0x0:
+            return (cpu, i) -> cpu.setRegisterToOtherRegister(i.getX(), i.getY());
+          case 0x1:
+            return (cpu, i) -> cpu.orRegisters(i.getX(), i.getY());
+          case 0x2:
+            return (cpu, i) -> cpu.andRegisters(i.getX(), i.getY());
+          case 0x3:
+            return (cpu, i) -> cpu.xorRegisters(i.getX(), i.getY());
+          case 0x4:
+            return (cpu, i) -> cpu.addRegisters(i.getX(), i.getY());
+          case 0x5:
+            return (cpu, i) -> cpu.subtractRegisterVYFromVX(i.getX(), i.getY());
+          case 0x6:
+            return (cpu, i) -> cpu.rightShiftRegister(i.getX());
+          case 0x7:
+            return (cpu, i) -> cpu.subtractRegisterVXFromVY(i.getX(), i.getY());
+          case 0xE:
+            return (cpu, i) -> cpu.leftShiftRegister(i.getX());
+          default:
+            return NOT_IMPLEMENTED;
+        }
+      case 0x9:
+        return (cpu, i) -> cpu.skipInstructionIfRegisterNotEqualToOtherRegister(i.getX(), i.getY());
+      case 0xA:
+        return (cpu, i) -> cpu.setIndexRegister(i.getNNN());
+      case 0xB:
+        return (cpu, i) -> cpu.jumpToAddressPlusV0(i.getNNN());
+      case 0xC:
+        return (cpu, i) -> cpu.setRegisterToRandomNumber(i.getX(), i.getNN());
+      case 0xD:
+        return (cpu, i) -> cpu.drawSprite(i.getX(), i.getY(), i.getN());
+      case 0xF:
+        switch (nn) {
+          case 0x07:
+            return (cpu, i) -> cpu.loadDelayTimer(i.getX());
+          case 0x15:
+            return (cpu, i) -> cpu.setDelayTimer(i.getX());
+          case 0x1E:
+            return (cpu, i) -> cpu.addRegisterToIndex(i.getX());
+          case 0x29:
+            return (cpu, i) -> cpu.setIndexToFontSpriteAddress(i.getX());
+          case 0x33:
+            return (cpu, i) -> cpu.storeBCDRepresentationAtIndex(i.getX());
+          case 0x55:
+            return (cpu, i) -> cpu.storeRegistersAtIndex(i.getX());
+          case 0x65:
+            return (cpu, i) -> cpu.loadRegistersAtIndex(i.getX());
+          default:
+            return NOT_IMPLEMENTED;
+        }
+      default:
+        return NOT_IMPLEMENTED;
+    }
+  }
+}
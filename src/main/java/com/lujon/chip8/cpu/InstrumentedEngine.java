@@ -0,0 +1,37 @@
+package com.lujon.chip8.cpu;
+
+import com.lujon.chip8.metrics.ExecutionMetrics;
+
+/**
+ * Interprets instructions one at a time like the {@link CPU}, counting every instruction by opcode
+ * family and timing every sprite draw. Only used while metrics are enabled, so the other engines
+ * carry no instrumentation.
+ */
+public class InstrumentedEngine implements ExecutionEngine {
+
+  private final CPU cpu;
+  private final ExecutionMetrics metrics;
+
+  public InstrumentedEngine(CPU cpu, ExecutionMetrics metrics) {
+    this.cpu = cpu;
+    this.metrics = metrics;
+  }
+
+  @Override
+  public void execute(int numInstructions) {
+    for (int i = 0; i < numInstructions; i++) {
+      Instruction instruction = cpu.fetchInstruction();
+
+      if (instruction.getFamily() == OpcodeFamily.DRW) {
+        long start = System.nanoTime();
+        cpu.executeInstruction(instruction);
+        metrics.recordDrawSprite(System.nanoTime() - start);
+      } else {
+        cpu.executeInstruction(instruction);
+      }
+
+      // Unknown instructions have thrown by now and everything the CPU executes has a family
+      metrics.countInstruction(instruction.getFamily());
+    }
+  }
+}
@@ -0,0 +1,155 @@
+package com.lujon.chip8.cpu;
+
+/**
+ * The 35 instructions of the CHIP-8 instruction set, without their operands.
+ */
+public enum OpcodeFamily {
+  SYS("0nnn - SYS addr"),
+  CLS("00E0 - CLS"),
+  RET("00EE - RET"),
+  JP("1nnn - JP addr"),
+  CALL("2nnn - CALL addr"),
+  SE_VX_BYTE("3xkk - SE Vx, byte"),
+  SNE_VX_BYTE("4xkk - SNE Vx, byte"),
+  SE_VX_VY("5xy0 - SE Vx, Vy"),
+  LD_VX_BYTE("6xkk - LD Vx, byte"),
+  ADD_VX_BYTE("7xkk - ADD Vx, byte"),
+  LD_VX_VY("8xy0 - LD Vx, Vy"),
+  OR("8xy1 - OR Vx, Vy"),
+  AND("8xy2 - AND Vx, Vy"),
+  XOR("8xy3 - XOR Vx, Vy"),
+  ADD_VX_VY("8xy4 - ADD Vx, Vy"),
+  SUB("8xy5 - SUB Vx, Vy"),
+  SHR("8xy6 - SHR Vx {, Vy}"),
+  SUBN("8xy7 - SUBN Vx, Vy"),
+  SHL("8xyE - SHL Vx {, Vy}"),
+  SNE_VX_VY("9xy0 - SNE Vx, Vy"),
+  LD_I("Annn - LD I, addr"),
+  JP_V0("Bnnn - JP V0, addr"),
+  RND("Cxkk - RND Vx, byte"),
+  DRW("Dxyn - DRW Vx, Vy, nibble"),
+  SKP("Ex9E - SKP Vx"),
+  SKNP("ExA1 - SKNP Vx"),
+  LD_VX_DT("Fx07 - LD Vx, DT"),
+  LD_VX_K("Fx0A - LD Vx, K"),
+  LD_DT_VX("Fx15 - LD DT, Vx"),
+  LD_ST_VX("Fx18 - LD ST, Vx"),
+  ADD_I_VX("Fx1E - ADD I, Vx"),
+  LD_F_VX("Fx29 - LD F, Vx"),
+  LD_B_VX("Fx33 - LD B, Vx"),
+  LD_I_VX("Fx55 - LD [I], Vx"),
+  LD_VX_I("Fx65 - LD Vx, [I]");
+
+  private final String description;
+
+  OpcodeFamily(String description) {
+    this.description = description;
+  }
+
+  public String getDescription() {
+    return description;
+  }
+
+  /**
+   * Returns the family of the 16-bit instruction, or null if it is not a CHIP-8 instruction. Bits
+   * the {@link CPU} ignores while decoding are ignored here too, so every instruction it executes
+   * has a family.
+   */
+  public static OpcodeFamily of(int instruction) {
+    int n = instruction & 0x000F;
+    int nn = instruction & 0x00FF;
+
+    switch ((instruction & 0xF000) >> 12) {
+      case 0x0:
+        if (nn == 0xE0) {
+          return CLS;
+        }
+        return nn == 0xEE ? RET : SYS;
+      case 0x1:
+        return JP;
+      case 0x2:
+        return CALL;
+      case 0x3:
+        return SE_VX_BYTE;
+      case 0x4:
+        return SNE_VX_BYTE;
+      case 0x5:
+        return SE_VX_VY;
+      case 0x6:
+        return LD_VX_BYTE;
+      case 0x7:
+        return ADD_VX_BYTE;
+      case 0x8:
+        return arithmeticFamily(n);
+      case 0x9:
+        return SNE_VX_VY;
+      case 0xA:
+        return LD_I;
+      case 0xB:
+        return JP_V0;
+      case 0xC:
+        return RND;
+      case 0xD:
+        return DRW;
+      case 0xE:
+        if (nn == 0x9E) {
+          return SKP;
+        }
+        return nn == 0xA1 ? SKNP : null;
+      case 0xF:
+        return miscFamily(nn);
+      default:
+        return null;
+    }
+  }
+
+  private static OpcodeFamily arithmeticFamily(int n) {
+    switch (n) {
+      case 0x0:
+        return LD_VX_VY;
+      case 0x1:
+        return OR;
+      case 0x2:
+        return AND;
+      case 0x3:
+        return XOR;
+      case 0x4:
+        return ADD_VX_VY;
+      case 0x5:
+        return SUB;
+      case 0x6:
+        return SHR;
+      case 0x7:
+        return SUBN;
+      case 0xE:
+        return SHL;
+      default:
+        return null;
+    }
+  }
+
+  private static OpcodeFamily miscFamily(int nn) {
+    switch (nn) {
+      case 0x07:
+        return LD_VX_DT;
+      case 0x0A:
+        return LD_VX_K;
+      case 0x15:
+        return LD_DT_VX;
+      case 0x18:
+        return LD_ST_VX;
+      case 0x1E:
+        return ADD_I_VX;
+      case 0x29:
+        return LD_F_VX;
+      case 0x33:
+        return LD_B_VX;
+      case 0x55:
+        return LD_I_VX;
+      case 0x65:
+        return LD_VX_I;
+      default:
+        return null;
+    }
+  }
+}
@@ -0,0 +1,34 @@
+package com.lujon.chip8.cpu;
+
+import com.lujon.chip8.profiler.Profile;
+
+/**
+ * Interprets instructions one at a time like the {@link CPU} and counts every one of them in a
+ * profile, following 2nnn and 00EE to keep track of the call stack. Only used while profiling.
+ */
+public class ProfilingEngine implements ExecutionEngine {
+
+  private final CPU cpu;
+  private final Profile profile;
+
+  public ProfilingEngine(CPU cpu, Profile profile) {
+    this.cpu = cpu;
+    this.profile = profile;
+  }
+
+  @Override
+  public void execute(int numInstructions) {
+    for (int i = 0; i < numInstructions; i++) {
+      int address = cpu.getProgramCounter();
+      Instruction instruction = cpu.fetchInstruction();
+      cpu.executeInstruction(instruction);
+
+      profile.count(address);
+      if (instruction.getFamily() == OpcodeFamily.CALL) {
+        profile.enterSubroutine(instruction.getNNN());
+      } else if (instruction.getFamily() == OpcodeFamily.RET) {
+        profile.returnFromSubroutine();
+      }
+    }
+  }
+}
@@ -0,0 +1,60 @@
+package com.lujon.chip8.cpu;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The 48-bit linear congruential generator of {@link java.util.Random}, with its whole state in one
+ * plain long so that saving and forking a {@link CPU} copies a number instead of serializing an
+ * object. Seeded the same way, it returns the same numbers as {@code Random.nextInt(256)}.
+ */
+public class RandomNumberGenerator {
+
+  private static final long MULTIPLIER = 0x5DEECE66DL;
+  private static final long ADDEND = 0xBL;
+  private static final long MASK = (1L << 48) - 1;
+
+  private long state;
+
+  public RandomNumberGenerator() {
+    this(ThreadLocalRandom.current().nextLong());
+  }
+
+  public RandomNumberGenerator(long seed) {
+    this.state = initialState(seed);
+  }
+
+  /**
+   * Returns a random number from 0 to 255.
+   */
+  public int nextByte() {
+    state = nextState(state);
+    return byteOf(state);
+  }
+
+  long getState() {
+    return state;
+  }
+
+  void setState(long state) {
+    this.state = state;
+  }
+
+  /**
+   * Returns the state a generator starts in for the seed, like {@link java.util.Random#setSeed}.
+   */
+  public static long initialState(long seed) {
+    return (seed ^ MULTIPLIER) & MASK;
+  }
+
+  public static long nextState(long state) {
+    return (state * MULTIPLIER + ADDEND) & MASK;
+  }
+
+  /**
+   * Returns the random number from 0 to 255 that a state gives; nextInt(256) takes the top 8 of the
+   * 48 bits.
+   */
+  public static int byteOf(long state) {
+    return (int) (state >>> 40);
+  }
+}
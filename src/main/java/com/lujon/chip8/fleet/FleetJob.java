@@ -0,0 +1,48 @@
+package com.lujon.chip8.fleet;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One ROM to run in a fleet, with the seed for its random number generator.
+ */
+public class FleetJob {
+
+  private final String name;
+  private final byte[] rom;
+  private final long seed;
+
+  public FleetJob(String name, byte[] rom, long seed) {
+    this.name = name;
+    this.rom = rom;
+    this.seed = seed;
+  }
+
+  /**
+   * Returns jobs running the same ROM with the seeds firstSeed, firstSeed + 1, and so on.
+   */
+  public static List<FleetJob> withSeeds(String name, byte[] rom, long firstSeed, int numSeeds) {
+    List<FleetJob> jobs = new ArrayList<>(numSeeds);
+    for (int i = 0; i < numSeeds; i++) {
+      jobs.add(new FleetJob(name, rom, firstSeed + i));
+    }
+    return jobs;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  byte[] getRom() {
+    return rom;
+  }
+
+  public long getSeed() {
+    return seed;
+  }
+
+  @Override
+  public String toString() {
+    return name + " (seed " + seed + ")";
+  }
+}
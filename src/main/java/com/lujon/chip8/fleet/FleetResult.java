@@ -0,0 +1,69 @@
+package com.lujon.chip8.fleet;
+
+import com.lujon.chip8.RunReport;
+
+/**
+ * Final state of one fleet job, or the error that stopped it.
+ */
+public class FleetResult {
+
+  private final FleetJob job;
+  private final RunReport runReport;
+  private final long stateDigest;
+  private final long[] framebuffer;
+  private final long screenDigest;
+  private final RuntimeException error;
+
+  FleetResult(FleetJob job, RunReport runReport, long stateDigest, long[] framebuffer,
+      long screenDigest) {
+    this.job = job;
+    this.runReport = runReport;
+    this.stateDigest = stateDigest;
+    this.framebuffer = framebuffer;
+    this.screenDigest = screenDigest;
+    this.error = null;
+  }
+
+  FleetResult(FleetJob job, RuntimeException error) {
+    this.job = job;
+    this.runReport = null;
+    this.stateDigest = 0;
+    this.framebuffer = null;
+    this.screenDigest = 0;
+    this.error = error;
+  }
+
+  public FleetJob getJob() {
+    return job;
+  }
+
+  public boolean isSuccessful() {
+    return error == null;
+  }
+
+  public RunReport getRunReport() {
+    return runReport;
+  }
+
+  public long getStateDigest() {
+    return stateDigest;
+  }
+
+  /**
+   * Returns the screen rows, each with the leftmost pixel in the most significant bit.
+   */
+  public long[] getFramebuffer() {
+    return framebuffer;
+  }
+
+  /**
+   * Returns the digest of the screen, see {@link com.lujon.chip8.screen.Screen#getDigest()}.
+   */
+  public long getScreenDigest() {
+    return screenDigest;
+  }
+
+  public RuntimeException getError() {
+    return error;
+  }
+}
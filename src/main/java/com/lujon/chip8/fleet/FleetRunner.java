@@ -0,0 +1,83 @@
+package com.lujon.chip8.fleet;
+
+import com.lujon.chip8.Chip8Emulator;
+import com.lujon.chip8.RunReport;
+import com.lujon.chip8.StopCondition;
+import com.lujon.chip8.cpu.RandomNumberGenerator;
+import com.lujon.chip8.memory.Memory;
+import com.lujon.chip8.screen.Screen;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Runs many ROM instances headless and unthrottled on a work-stealing pool. Every instance gets its
+ * own memory, screen and random number generator, so instances share nothing and scale with the
+ * number of cores.
+ */
+public class FleetRunner implements AutoCloseable {
+
+  private final ForkJoinPool pool;
+
+  public FleetRunner() {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  public FleetRunner(int parallelism) {
+    this.pool = new ForkJoinPool(parallelism);
+  }
+
+  /**
+   * Runs every job until the stop condition is met and returns the results in job order. A job that
+   * fails does not stop the others; its result holds the error instead.
+   */
+  public List<FleetResult> run(List<FleetJob> jobs, int instructionsPerFrame,
+      StopCondition stopCondition) throws InterruptedException {
+    List<Callable<FleetResult>> tasks = new ArrayList<>(jobs.size());
+    for (FleetJob job : jobs) {
+      tasks.add(() -> runJob(job, instructionsPerFrame, stopCondition));
+    }
+
+    List<FleetResult> results = new ArrayList<>(jobs.size());
+    for (Future<FleetResult> future : pool.invokeAll(tasks)) {
+      try {
+        results.add(future.get());
+      } catch (ExecutionException e) {
+        throw new IllegalStateException("Fleet job failed unexpectedly", e.getCause());
+      }
+    }
+    return results;
+  }
+
+  private static FleetResult runJob(FleetJob job, int instructionsPerFrame,
+      StopCondition stopCondition) {
+    Memory memory = new Memory();
+    Screen screen = new Screen(false);
+
+    try {
+      memory.init(job.getRom());
+
+      Chip8Emulator chip8Emulator =
+          new Chip8Emulator(memory, screen, new RandomNumberGenerator(job.getSeed()));
+      RunReport runReport = chip8Emulator.runHeadless(instructionsPerFrame, stopCondition);
+
+      long[] framebuffer = new long[screen.getHeight()];
+      for (int y = 0; y < framebuffer.length; y++) {
+        framebuffer[y] = screen.getRow(y);
+      }
+
+      return new FleetResult(job, runReport, chip8Emulator.getStateDigest(), framebuffer,
+          screen.getDigest());
+    } catch (RuntimeException e) {
+      return new FleetResult(job, e);
+    }
+  }
+
+  @Override
+  public void close() {
+    pool.shutdown();
+  }
+}
@@ -0,0 +1,178 @@
+package com.lujon.chip8.golden;
+
+import com.lujon.chip8.Chip8Emulator;
+import com.lujon.chip8.StopCondition;
+import com.lujon.chip8.fleet.FleetJob;
+import com.lujon.chip8.fleet.FleetResult;
+import com.lujon.chip8.fleet.FleetRunner;
+import com.lujon.chip8.rom.Rom;
+import com.lujon.chip8.rom.RomLibrary;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Runs ROMs headless and in parallel and compares their final screens with golden digests, so that
+ * thousands of ROM checks take seconds. ROMs are looked up by name in a {@link RomLibrary}.
+ */
+public class ConformanceHarness implements AutoCloseable {
+
+  private final RomLibrary romLibrary;
+  private final int instructionsPerFrame;
+  private final FleetRunner fleetRunner = new FleetRunner();
+
+  public ConformanceHarness(RomLibrary romLibrary) {
+    this(romLibrary, Chip8Emulator.DEFAULT_INSTRUCTIONS_PER_FRAME);
+  }
+
+  public ConformanceHarness(RomLibrary romLibrary, int instructionsPerFrame) {
+    this.romLibrary = romLibrary;
+    this.instructionsPerFrame = instructionsPerFrame;
+  }
+
+  /**
+   * Runs every case and returns the results in case order.
+   */
+  public List<GoldenResult> check(List<GoldenCase> goldenCases) throws InterruptedException {
+    GoldenResult[] results = new GoldenResult[goldenCases.size()];
+
+    // Cases that run for the same number of instructions share a stop condition
+    Map<Long, List<Integer>> caseIndexesByLength = new LinkedHashMap<>();
+    for (int i = 0; i < goldenCases.size(); i++) {
+      caseIndexesByLength.computeIfAbsent(goldenCases.get(i).getNumInstructions(),
+          numInstructions -> new ArrayList<>()).add(i);
+    }
+
+    for (Map.Entry<Long, List<Integer>> entry : caseIndexesByLength.entrySet()) {
+      List<Integer> jobCaseIndexes = new ArrayList<>();
+      List<FleetJob> jobs = new ArrayList<>();
+
+      for (int caseIndex : entry.getValue()) {
+        GoldenCase goldenCase = goldenCases.get(caseIndex);
+        Optional<Rom> rom = romLibrary.findByName(goldenCase.getRomName());
+
+        if (rom.isEmpty()) {
+          results[caseIndex] = new GoldenResult(goldenCase,
+              new IllegalArgumentException("No such ROM: " + goldenCase.getRomName()));
+        } else {
+          jobCaseIndexes.add(caseIndex);
+          jobs.add(new FleetJob(goldenCase.getRomName(), toBytes(rom.get().getData()),
+              goldenCase.getSeed()));
+        }
+      }
+
+      List<FleetResult> fleetResults = fleetRunner.run(jobs, instructionsPerFrame,
+          StopCondition.afterInstructions(entry.getKey()));
+
+      for (int i = 0; i < fleetResults.size(); i++) {
+        int caseIndex = jobCaseIndexes.get(i);
+        FleetResult fleetResult = fleetResults.get(i);
+        results[caseIndex] = fleetResult.isSuccessful()
+            ? new GoldenResult(goldenCases.get(caseIndex), fleetResult.getScreenDigest())
+            : new GoldenResult(goldenCases.get(caseIndex), fleetResult.getError());
+      }
+    }
+
+    return List.of(results);
+  }
+
+  /**
+   * Runs every case and returns them with the screen digests they actually end with, for writing
+   * a new golden file.
+   *
+   * @throws IllegalStateException if a case cannot be run
+   */
+  public List<GoldenCase> record(List<GoldenCase> goldenCases) throws InterruptedException {
+    List<GoldenCase> recordedCases = new ArrayList<>(goldenCases.size());
+    for (GoldenResult result : check(goldenCases)) {
+      if (result.getError() != null) {
+        throw new IllegalStateException("Cannot record " + result.getGoldenCase(),
+            result.getError());
+      }
+      recordedCases.add(result.getGoldenCase()
+          .withExpectedScreenDigest(result.getActualScreenDigest()));
+    }
+    return recordedCases;
+  }
+
+  private static byte[] toBytes(ByteBuffer data) {
+    byte[] bytes = new byte[data.remaining()];
+    data.get(bytes);
+    return bytes;
+  }
+
+  /**
+   * Reads a golden file, skipping blank lines and lines starting with #.
+   */
+  public static List<GoldenCase> readGoldenFile(Path goldenFile) throws IOException {
+    List<GoldenCase> goldenCases = new ArrayList<>();
+    for (String line : Files.readAllLines(goldenFile, StandardCharsets.UTF_8)) {
+      if (!line.isBlank() && !line.startsWith("#")) {
+        goldenCases.add(GoldenCase.parse(line));
+      }
+    }
+    return goldenCases;
+  }
+
+  public static void writeGoldenFile(Path goldenFile, List<GoldenCase> goldenCases)
+      throws IOException {
+    List<String> lines = new ArrayList<>();
+    lines.add("# rom instructions seed screen-digest");
+    for (GoldenCase goldenCase : goldenCases) {
+      lines.add(goldenCase.toString());
+    }
+    Files.write(goldenFile, lines, StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public void close() {
+    fleetRunner.close();
+  }
+
+  /**
+   * Checks the golden file against the ROMs in a directory and exits with status 1 if any case
+   * fails. With --record, rewrites the golden file with the current digests instead.
+   *
+   * <p>Usage: {@code ConformanceHarness <rom directory> <golden file> [--record]}
+   */
+  public static void main(String[] args) throws IOException, InterruptedException {
+    if (args.length < 2) {
+      System.err.println("Usage: ConformanceHarness <rom directory> <golden file> [--record]");
+      System.exit(2);
+    }
+
+    Path goldenFile = Paths.get(args[1]);
+    boolean record = args.length > 2 && args[2].equals("--record");
+    List<GoldenCase> goldenCases = readGoldenFile(goldenFile);
+
+    try (ConformanceHarness harness = new ConformanceHarness(
+        new RomLibrary(Paths.get(args[0]), 1))) {
+      if (record) {
+        writeGoldenFile(goldenFile, harness.record(goldenCases));
+        System.out.println("Recorded " + goldenCases.size() + " cases");
+        return;
+      }
+
+      long numFailed = 0;
+      for (GoldenResult result : harness.check(goldenCases)) {
+        if (!result.isPassed()) {
+          System.out.println(result);
+          numFailed++;
+        }
+      }
+      System.out.println((goldenCases.size() - numFailed) + "/" + goldenCases.size() + " passed");
+
+      if (numFailed > 0) {
+        System.exit(1);
+      }
+    }
+  }
+}
@@ -0,0 +1,66 @@
+package com.lujon.chip8.golden;
+
+/**
+ * A ROM run for a number of instructions with a seeded random number generator, and the screen
+ * digest it is expected to end with. Written as one line of a golden file:
+ * {@code <rom name> <instructions> <seed> <screen digest in hex>}.
+ */
+public class GoldenCase {
+
+  private final String romName;
+  private final long numInstructions;
+  private final long seed;
+  private final long expectedScreenDigest;
+
+  public GoldenCase(String romName, long numInstructions, long seed, long expectedScreenDigest) {
+    this.romName = romName;
+    this.numInstructions = numInstructions;
+    this.seed = seed;
+    this.expectedScreenDigest = expectedScreenDigest;
+  }
+
+  /**
+   * Parses a line of a golden file.
+   *
+   * @throws IllegalArgumentException if the line is malformed
+   */
+  public static GoldenCase parse(String line) {
+    String[] fields = line.trim().split("\\s+");
+    if (fields.length != 4) {
+      throw new IllegalArgumentException("Golden case needs 4 fields: " + line);
+    }
+
+    try {
+      return new GoldenCase(fields[0], Long.parseLong(fields[1]), Long.parseLong(fields[2]),
+          Long.parseUnsignedLong(fields[3], 16));
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Malformed golden case: " + line, e);
+    }
+  }
+
+  public String getRomName() {
+    return romName;
+  }
+
+  public long getNumInstructions() {
+    return numInstructions;
+  }
+
+  public long getSeed() {
+    return seed;
+  }
+
+  public long getExpectedScreenDigest() {
+    return expectedScreenDigest;
+  }
+
+  public GoldenCase withExpectedScreenDigest(long screenDigest) {
+    return new GoldenCase(romName, numInstructions, seed, screenDigest);
+  }
+
+  @Override
+  public String toString() {
+    return romName + " " + numInstructions + " " + seed + " "
+        + String.format("%016x", expectedScreenDigest);
+  }
+}
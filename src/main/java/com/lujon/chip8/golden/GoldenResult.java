@@ -0,0 +1,48 @@
+package com.lujon.chip8.golden;
+
+/**
+ * The outcome of checking one golden case.
+ */
+public class GoldenResult {
+
+  private final GoldenCase goldenCase;
+  private final long actualScreenDigest;
+  private final RuntimeException error;
+
+  GoldenResult(GoldenCase goldenCase, long actualScreenDigest) {
+    this.goldenCase = goldenCase;
+    this.actualScreenDigest = actualScreenDigest;
+    this.error = null;
+  }
+
+  GoldenResult(GoldenCase goldenCase, RuntimeException error) {
+    this.goldenCase = goldenCase;
+    this.actualScreenDigest = 0;
+    this.error = error;
+  }
+
+  public GoldenCase getGoldenCase() {
+    return goldenCase;
+  }
+
+  public long getActualScreenDigest() {
+    return actualScreenDigest;
+  }
+
+  public RuntimeException getError() {
+    return error;
+  }
+
+  public boolean isPassed() {
+    return error == null && actualScreenDigest == goldenCase.getExpectedScreenDigest();
+  }
+
+  @Override
+  public String toString() {
+    if (error != null) {
+      return "ERROR " + goldenCase + ": " + error;
+    }
+    return (isPassed() ? "PASS " : "FAIL ") + goldenCase
+        + (isPassed() ? "" : String.format(", got %016x", actualScreenDigest));
+  }
+}
@@ -0,0 +1,77 @@
+package com.lujon.chip8.memory;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Memory kept outside the Java heap in a direct buffer, or in any buffer given to it, such as one
+ * mapped from a file that a native viewer reads. Forks and snapshots are full copies.
+ */
+public class DirectMemoryBackend implements MemoryBackend {
+
+  private final ByteBuffer buffer;
+
+  public DirectMemoryBackend() {
+    this(ByteBuffer.allocateDirect(Memory.SIZE));
+  }
+
+  /**
+   * Uses the first {@link Memory#SIZE} bytes of the buffer, starting at index 0.
+   */
+  public DirectMemoryBackend(ByteBuffer buffer) {
+    if (buffer.capacity() < Memory.SIZE) {
+      throw new IllegalArgumentException("Buffer is smaller than memory: " + buffer.capacity());
+    }
+    this.buffer = buffer;
+  }
+
+  @Override
+  public byte get(int address) {
+    return buffer.get(address);
+  }
+
+  @Override
+  public void set(int address, byte value) {
+    buffer.put(address, value);
+  }
+
+  @Override
+  public void read(int address, byte[] destination, int offset, int length) {
+    buffer.get(address, destination, offset, length);
+  }
+
+  @Override
+  public void write(int address, byte[] source, int offset, int length) {
+    buffer.put(address, source, offset, length);
+  }
+
+  @Override
+  public MemoryBackend fork() {
+    DirectMemoryBackend fork = new DirectMemoryBackend();
+    fork.buffer.put(0, buffer, 0, Memory.SIZE);
+    return fork;
+  }
+
+  @Override
+  public MemorySnapshot snapshot() {
+    byte[][] pages = new byte[Memory.NUM_PAGES][Memory.PAGE_SIZE];
+    for (int page = 0; page < pages.length; page++) {
+      read(page * Memory.PAGE_SIZE, pages[page], 0, Memory.PAGE_SIZE);
+    }
+    return new MemorySnapshot(pages);
+  }
+
+  @Override
+  public void restore(MemorySnapshot snapshot) {
+    byte[][] pages = snapshot.getPages();
+    for (int page = 0; page < pages.length; page++) {
+      write(page * Memory.PAGE_SIZE, pages[page], 0, Memory.PAGE_SIZE);
+    }
+  }
+
+  /**
+   * Returns a read-only view of the memory contents that follows later writes.
+   */
+  public ByteBuffer asReadOnlyBuffer() {
+    return buffer.asReadOnlyBuffer();
+  }
+}
@@ -0,0 +1,85 @@
+package com.lujon.chip8.memory;
+
+import java.util.Arrays;
+
+/**
+ * Memory kept on the heap in pages that are shared with forks and snapshots and copied before they
+ * are written to, so forking and snapshotting cost only the pages written afterwards.
+ */
+public class HeapMemoryBackend implements MemoryBackend {
+
+  private static final int PAGE_SIZE = Memory.PAGE_SIZE;
+  private static final int PAGE_SHIFT = Memory.PAGE_SHIFT;
+
+  private byte[][] pages;
+  private final boolean[] sharedPages = new boolean[Memory.NUM_PAGES];
+
+  public HeapMemoryBackend() {
+    this.pages = new byte[Memory.NUM_PAGES][PAGE_SIZE];
+  }
+
+  private HeapMemoryBackend(byte[][] sharedPages) {
+    this.pages = sharedPages.clone();
+    Arrays.fill(this.sharedPages, true);
+  }
+
+  @Override
+  public byte get(int address) {
+    return pages[address >> PAGE_SHIFT][address & (PAGE_SIZE - 1)];
+  }
+
+  @Override
+  public void set(int address, byte value) {
+    writablePage(address >> PAGE_SHIFT)[address & (PAGE_SIZE - 1)] = value;
+  }
+
+  @Override
+  public void read(int address, byte[] destination, int offset, int length) {
+    while (length > 0) {
+      int pageOffset = address & (PAGE_SIZE - 1);
+      int chunk = Math.min(length, PAGE_SIZE - pageOffset);
+      System.arraycopy(pages[address >> PAGE_SHIFT], pageOffset, destination, offset, chunk);
+      address += chunk;
+      offset += chunk;
+      length -= chunk;
+    }
+  }
+
+  @Override
+  public void write(int address, byte[] source, int offset, int length) {
+    while (length > 0) {
+      int pageOffset = address & (PAGE_SIZE - 1);
+      int chunk = Math.min(length, PAGE_SIZE - pageOffset);
+      System.arraycopy(source, offset, writablePage(address >> PAGE_SHIFT), pageOffset, chunk);
+      address += chunk;
+      offset += chunk;
+      length -= chunk;
+    }
+  }
+
+  private byte[] writablePage(int page) {
+    if (sharedPages[page]) {
+      pages[page] = pages[page].clone();
+      sharedPages[page] = false;
+    }
+    return pages[page];
+  }
+
+  @Override
+  public MemoryBackend fork() {
+    Arrays.fill(sharedPages, true);
+    return new HeapMemoryBackend(pages);
+  }
+
+  @Override
+  public MemorySnapshot snapshot() {
+    Arrays.fill(sharedPages, true);
+    return new MemorySnapshot(pages.clone());
+  }
+
+  @Override
+  public void restore(MemorySnapshot snapshot) {
+    pages = snapshot.getPages().clone();
+    Arrays.fill(sharedPages, true);
+  }
+}
@@ -1,5 +1,8 @@
 package com.lujon.chip8.memory;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
 public class Memory {
 
   private static final char[] FONT = new char[] {
@@ -23,22 +26,126 @@ public class Memory {
 
   public static final int FONT_START_ADDRESS = 0x050;
   private static final int PROGRAM_START_ADDRESS = 0x200;
+  public static final int SIZE = 4096;
+
+  // Snapshots are made of pages of this size, whatever the backend
+  static final int PAGE_SIZE = 256;
+  static final int PAGE_SHIFT = 8;
+  static final int NUM_PAGES = SIZE / PAGE_SIZE;
+  private static final int ADDRESS_MASK = SIZE - 1;
 
-  private final byte[] internalMemory = new byte[4096];
+  private final MemoryBackend backend;
+  private MemoryWriteListener[] writeListeners = new MemoryWriteListener[0];
+
+  public Memory() {
+    this(new HeapMemoryBackend());
+  }
+
+  public Memory(MemoryBackend backend) {
+    this.backend = backend;
+  }
 
   public void init(byte[] programData) {
+    init(ByteBuffer.wrap(programData));
+  }
+
+  /**
+   * Loads the font and the remaining bytes of the buffer as the program, without changing the
+   * buffer's position.
+   */
+  public void init(ByteBuffer programData) {
+    int programLength = programData.remaining();
+
+    if (PROGRAM_START_ADDRESS + programLength > SIZE) {
+      throw new ArrayIndexOutOfBoundsException("Program does not fit in memory: "
+          + programLength + " bytes");
+    }
+
     for (int i = 0; i < FONT.length; i++) {
-      internalMemory[FONT_START_ADDRESS + i] = (byte) FONT[i];
+      backend.set(FONT_START_ADDRESS + i, (byte) FONT[i]);
     }
 
-    System.arraycopy(programData, 0, internalMemory, PROGRAM_START_ADDRESS, programData.length);
+    for (int i = 0; i < programLength; i++) {
+      backend.set(PROGRAM_START_ADDRESS + i, programData.get(programData.position() + i));
+    }
+
+    notifyWriteListeners(0, SIZE);
   }
 
+  /**
+   * Returns the byte at the address. Like all accessors, only the lowest 12 bits of the address
+   * are used, so addresses wrap around the end of memory.
+   */
   public byte getByte(int address) {
-    return internalMemory[address];
+    return backend.get(address & ADDRESS_MASK);
   }
 
   public void setByte(int address, byte value) {
-    internalMemory[address] = value;
+    int maskedAddress = address & ADDRESS_MASK;
+    backend.set(maskedAddress, value);
+    notifyWriteListeners(maskedAddress, 1);
+  }
+
+  /**
+   * Copies length bytes starting at the address into the destination array.
+   */
+  public void readBytes(int address, byte[] destination, int offset, int length) {
+    int maskedAddress = address & ADDRESS_MASK;
+    int lengthToEnd = Math.min(length, SIZE - maskedAddress);
+
+    backend.read(maskedAddress, destination, offset, lengthToEnd);
+    if (lengthToEnd < length) {
+      backend.read(0, destination, offset + lengthToEnd, length - lengthToEnd);
+    }
+  }
+
+  /**
+   * Copies length bytes from the source array into memory starting at the address, and notifies
+   * the write listeners once for the whole range.
+   */
+  public void writeBytes(int address, byte[] source, int offset, int length) {
+    int maskedAddress = address & ADDRESS_MASK;
+    int lengthToEnd = Math.min(length, SIZE - maskedAddress);
+
+    backend.write(maskedAddress, source, offset, lengthToEnd);
+    notifyWriteListeners(maskedAddress, lengthToEnd);
+    if (lengthToEnd < length) {
+      backend.write(0, source, offset + lengthToEnd, length - lengthToEnd);
+      notifyWriteListeners(0, length - lengthToEnd);
+    }
+  }
+
+  /**
+   * Returns a copy of this memory with the same kind of backend that is written to independently.
+   * The heap backend shares all pages with the copy until either side writes to them, so forking
+   * costs only the pages that are written afterwards. Write listeners are not copied.
+   */
+  public Memory fork() {
+    return new Memory(backend.fork());
+  }
+
+  public MemorySnapshot snapshot() {
+    return backend.snapshot();
+  }
+
+  public void restore(MemorySnapshot snapshot) {
+    backend.restore(snapshot);
+
+    notifyWriteListeners(0, SIZE);
+  }
+
+  public MemoryBackend getBackend() {
+    return backend;
+  }
+
+  public void addWriteListener(MemoryWriteListener writeListener) {
+    writeListeners = Arrays.copyOf(writeListeners, writeListeners.length + 1);
+    writeListeners[writeListeners.length - 1] = writeListener;
+  }
+
+  private void notifyWriteListeners(int address, int length) {
+    for (int i = 0; i < writeListeners.length; i++) {
+      writeListeners[i].onWrite(address, length);
+    }
   }
 }
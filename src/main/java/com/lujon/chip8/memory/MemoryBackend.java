@@ -0,0 +1,25 @@
+package com.lujon.chip8.memory;
+
+/**
+ * Storage for the bytes of a {@link Memory}. Addresses given to a backend are always within the
+ * memory and ranges never wrap around its end; {@link Memory} takes care of both.
+ */
+public interface MemoryBackend {
+
+  byte get(int address);
+
+  void set(int address, byte value);
+
+  void read(int address, byte[] destination, int offset, int length);
+
+  void write(int address, byte[] source, int offset, int length);
+
+  /**
+   * Returns a backend of the same kind with the same contents that is written to independently.
+   */
+  MemoryBackend fork();
+
+  MemorySnapshot snapshot();
+
+  void restore(MemorySnapshot snapshot);
+}
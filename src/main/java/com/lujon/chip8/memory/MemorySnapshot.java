@@ -0,0 +1,38 @@
+package com.lujon.chip8.memory;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Contents of a {@link Memory} at one point in time. The pages are shared with the memory they were
+ * taken from and are never written to.
+ */
+public class MemorySnapshot {
+
+  private final byte[][] pages;
+
+  MemorySnapshot(byte[][] pages) {
+    this.pages = pages;
+  }
+
+  byte[][] getPages() {
+    return pages;
+  }
+
+  public byte getByte(int address) {
+    return pages[address >> Memory.PAGE_SHIFT][address & (Memory.PAGE_SIZE - 1)];
+  }
+
+  public void writeTo(ByteBuffer buffer) {
+    for (byte[] page : pages) {
+      buffer.put(page);
+    }
+  }
+
+  public static MemorySnapshot readFrom(ByteBuffer buffer) {
+    byte[][] pages = new byte[Memory.NUM_PAGES][Memory.PAGE_SIZE];
+    for (byte[] page : pages) {
+      buffer.get(page);
+    }
+    return new MemorySnapshot(pages);
+  }
+}
@@ -0,0 +1,10 @@
+package com.lujon.chip8.memory;
+
+/**
+ * Notified whenever a range of {@link Memory} is written, so that anything derived from memory
+ * contents (such as decoded instructions) can be invalidated.
+ */
+public interface MemoryWriteListener {
+
+  void onWrite(int address, int length);
+}
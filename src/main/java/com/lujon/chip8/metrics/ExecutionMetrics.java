@@ -0,0 +1,194 @@
+package com.lujon.chip8.metrics;
+
+import com.lujon.chip8.cpu.OpcodeFamily;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Per-opcode execution counts, sprite and screen draw latencies, and instruction and frame rates
+ * of one emulator. Recorded by the emulator thread only, readable from any thread.
+ */
+public class ExecutionMetrics implements ExecutionMetricsMXBean {
+
+  private static final String OBJECT_NAME_PREFIX = "com.lujon.chip8:type=ExecutionMetrics,name=";
+  private static final long RATE_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+  private static final OpcodeFamily[] FAMILIES = OpcodeFamily.values();
+
+  private final AtomicLongArray instructionCounts = new AtomicLongArray(FAMILIES.length);
+  private final LatencyHistogram drawSpriteLatencies = new LatencyHistogram();
+  private final LatencyHistogram screenDrawLatencies = new LatencyHistogram();
+
+  private long numFrames;
+  private long windowStartNanos = System.nanoTime();
+  private long windowStartInstructions;
+  private long windowStartFrames;
+  private volatile double instructionsPerSecond;
+  private volatile double framesPerSecond;
+
+  public void countInstruction(OpcodeFamily family) {
+    int index = family.ordinal();
+    instructionCounts.lazySet(index, instructionCounts.get(index) + 1);
+  }
+
+  public void recordDrawSprite(long nanos) {
+    drawSpriteLatencies.record(nanos);
+  }
+
+  public void recordScreenDraw(long nanos) {
+    screenDrawLatencies.record(nanos);
+  }
+
+  /**
+   * Called once per emulated frame. Updates the rates once a second.
+   */
+  public void recordFrame() {
+    numFrames++;
+
+    long now = System.nanoTime();
+    long elapsedNanos = now - windowStartNanos;
+    if (elapsedNanos >= RATE_WINDOW_NANOS) {
+      long totalInstructions = getTotalInstructions();
+      double nanosPerSecond = TimeUnit.SECONDS.toNanos(1);
+
+      instructionsPerSecond =
+          (totalInstructions - windowStartInstructions) * nanosPerSecond / elapsedNanos;
+      framesPerSecond = (numFrames - windowStartFrames) * nanosPerSecond / elapsedNanos;
+
+      windowStartNanos = now;
+      windowStartInstructions = totalInstructions;
+      windowStartFrames = numFrames;
+    }
+  }
+
+  public long getInstructionCount(OpcodeFamily family) {
+    return instructionCounts.get(family.ordinal());
+  }
+
+  public LatencyHistogram getDrawSpriteLatencies() {
+    return drawSpriteLatencies;
+  }
+
+  public LatencyHistogram getScreenDrawLatencies() {
+    return screenDrawLatencies;
+  }
+
+  /**
+   * Registers these metrics with the platform MBean server under the given name.
+   *
+   * @throws IllegalStateException if the MBean cannot be registered, for example because the name
+   *     is taken
+   */
+  public ObjectName register(String name) {
+    try {
+      ObjectName objectName = new ObjectName(OBJECT_NAME_PREFIX + ObjectName.quote(name));
+      ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+      return objectName;
+    } catch (JMException e) {
+      throw new IllegalStateException("Cannot register execution metrics as " + name, e);
+    }
+  }
+
+  /**
+   * Removes the MBean registered with {@link #register(String)}, if it is still registered.
+   */
+  public static void unregister(ObjectName objectName) {
+    MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+    try {
+      if (mBeanServer.isRegistered(objectName)) {
+        mBeanServer.unregisterMBean(objectName);
+      }
+    } catch (JMException e) {
+      throw new IllegalStateException("Cannot unregister " + objectName, e);
+    }
+  }
+
+  @Override
+  public Map<String, Long> getInstructionCounts() {
+    Map<String, Long> counts = new LinkedHashMap<>();
+    for (OpcodeFamily family : FAMILIES) {
+      counts.put(family.name(), getInstructionCount(family));
+    }
+    return counts;
+  }
+
+  @Override
+  public long getTotalInstructions() {
+    long total = 0;
+    for (int i = 0; i < FAMILIES.length; i++) {
+      total += instructionCounts.get(i);
+    }
+    return total;
+  }
+
+  @Override
+  public double getDrawInstructionRatio() {
+    long total = getTotalInstructions();
+    return total == 0 ? 0 : (double) getInstructionCount(OpcodeFamily.DRW) / total;
+  }
+
+  @Override
+  public double getInstructionsPerSecond() {
+    return instructionsPerSecond;
+  }
+
+  @Override
+  public double getFramesPerSecond() {
+    return framesPerSecond;
+  }
+
+  @Override
+  public long getDrawSpriteCount() {
+    return drawSpriteLatencies.getCount();
+  }
+
+  @Override
+  public double getDrawSpriteMeanNanos() {
+    return drawSpriteLatencies.getMean();
+  }
+
+  @Override
+  public long getDrawSpriteP50Nanos() {
+    return drawSpriteLatencies.getValueAtPercentile(50);
+  }
+
+  @Override
+  public long getDrawSpriteP99Nanos() {
+    return drawSpriteLatencies.getValueAtPercentile(99);
+  }
+
+  @Override
+  public long getDrawSpriteMaxNanos() {
+    return drawSpriteLatencies.getMax();
+  }
+
+  @Override
+  public long getScreenDrawCount() {
+    return screenDrawLatencies.getCount();
+  }
+
+  @Override
+  public double getScreenDrawMeanNanos() {
+    return screenDrawLatencies.getMean();
+  }
+
+  @Override
+  public long getScreenDrawP50Nanos() {
+    return screenDrawLatencies.getValueAtPercentile(50);
+  }
+
+  @Override
+  public long getScreenDrawP99Nanos() {
+    return screenDrawLatencies.getValueAtPercentile(99);
+  }
+
+  @Override
+  public long getScreenDrawMaxNanos() {
+    return screenDrawLatencies.getMax();
+  }
+}
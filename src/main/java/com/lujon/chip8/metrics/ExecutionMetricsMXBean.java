@@ -0,0 +1,46 @@
+package com.lujon.chip8.metrics;
+
+import java.util.Map;
+
+/**
+ * What a running emulator spends its time on, as seen over JMX. Durations are in nanoseconds and
+ * rates are measured over the last whole second.
+ */
+public interface ExecutionMetricsMXBean {
+
+  /**
+   * Returns the number of executed instructions per opcode family, keyed by family name.
+   */
+  Map<String, Long> getInstructionCounts();
+
+  long getTotalInstructions();
+
+  /**
+   * Returns the fraction of executed instructions that were sprite draws.
+   */
+  double getDrawInstructionRatio();
+
+  double getInstructionsPerSecond();
+
+  double getFramesPerSecond();
+
+  long getDrawSpriteCount();
+
+  double getDrawSpriteMeanNanos();
+
+  long getDrawSpriteP50Nanos();
+
+  long getDrawSpriteP99Nanos();
+
+  long getDrawSpriteMaxNanos();
+
+  long getScreenDrawCount();
+
+  double getScreenDrawMeanNanos();
+
+  long getScreenDrawP50Nanos();
+
+  long getScreenDrawP99Nanos();
+
+  long getScreenDrawMaxNanos();
+}
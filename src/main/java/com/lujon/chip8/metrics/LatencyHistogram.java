@@ -0,0 +1,86 @@
+package com.lujon.chip8.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A log-linear histogram of durations in nanoseconds in the style of HdrHistogram. Every power of
+ * two is split into eight buckets, so recorded values are kept to within 12.5% at any magnitude
+ * with a fixed amount of memory.
+ *
+ * <p>Only one thread may record. Any thread may read while it does.
+ */
+public class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 3;
+  private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+  private static final int NUM_BUCKETS = (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+  private static final int TOTAL_COUNT = 0;
+  private static final int TOTAL_SUM = 1;
+  private static final int TOTAL_MAX = 2;
+
+  private final AtomicLongArray counts = new AtomicLongArray(NUM_BUCKETS);
+  private final AtomicLongArray totals = new AtomicLongArray(3);
+
+  public void record(long nanos) {
+    long value = Math.max(nanos, 0);
+    int bucket = bucketOf(value);
+
+    // Single writer, so ordered stores are enough to make the counts visible to readers
+    counts.lazySet(bucket, counts.get(bucket) + 1);
+    totals.lazySet(TOTAL_SUM, totals.get(TOTAL_SUM) + value);
+    totals.lazySet(TOTAL_MAX, Math.max(totals.get(TOTAL_MAX), value));
+    totals.lazySet(TOTAL_COUNT, totals.get(TOTAL_COUNT) + 1);
+  }
+
+  public long getCount() {
+    return totals.get(TOTAL_COUNT);
+  }
+
+  public long getMax() {
+    return totals.get(TOTAL_MAX);
+  }
+
+  public double getMean() {
+    long count = getCount();
+    return count == 0 ? 0 : (double) totals.get(TOTAL_SUM) / count;
+  }
+
+  /**
+   * Returns the highest value that is recorded in the same bucket as the value at the given
+   * percentile, or 0 if nothing has been recorded.
+   */
+  public long getValueAtPercentile(double percentile) {
+    long count = getCount();
+    if (count == 0) {
+      return 0;
+    }
+
+    long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+    long seen = 0;
+    for (int bucket = 0; bucket < NUM_BUCKETS; bucket++) {
+      seen += counts.get(bucket);
+      if (seen >= rank) {
+        return Math.min(highestValueOf(bucket), getMax());
+      }
+    }
+    return getMax();
+  }
+
+  static int bucketOf(long value) {
+    if (value < SUB_BUCKET_COUNT) {
+      return (int) value;
+    }
+    int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+    int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+  }
+
+  static long highestValueOf(int bucket) {
+    if (bucket < SUB_BUCKET_COUNT) {
+      return bucket;
+    }
+    int shift = bucket / SUB_BUCKET_COUNT - 1;
+    long lowest = (long) (SUB_BUCKET_COUNT + bucket % SUB_BUCKET_COUNT) << shift;
+    return lowest + (1L << shift) - 1;
+  }
+}
@@ -0,0 +1,140 @@
+package com.lujon.chip8.profiler;
+
+import com.lujon.chip8.cpu.CPU;
+import com.lujon.chip8.memory.Memory;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Executed instructions, or samples of them, attributed to program counter addresses and to call
+ * stacks. Call stacks are made of the entry addresses of the subroutines called with 2nnn, below
+ * the main program. A profile is filled by one thread at a time and should be read once profiling
+ * has stopped.
+ */
+public class Profile {
+
+  private final long[] addressCounts = new long[Memory.SIZE];
+  private final CallContext root = new CallContext(null, CPU.INITIAL_PC);
+  private CallContext currentContext = root;
+  private long totalCount;
+
+  /**
+   * Counts one instruction at the address in the current call context.
+   */
+  public void count(int address) {
+    addressCounts[address & (Memory.SIZE - 1)]++;
+    currentContext.count++;
+    totalCount++;
+  }
+
+  /**
+   * Makes the subroutine at the address the current call context, after a 2nnn.
+   */
+  public void enterSubroutine(int address) {
+    currentContext = currentContext.getChild(address);
+  }
+
+  /**
+   * Makes the caller the current call context again, after a 00EE. Returns from calls made before
+   * profiling started are ignored.
+   */
+  public void returnFromSubroutine() {
+    if (currentContext.parent != null) {
+      currentContext = currentContext.parent;
+    }
+  }
+
+  /**
+   * Counts one sample at the address, in the call context given by the subroutine entry addresses
+   * from the outermost call to the innermost one.
+   */
+  public void sample(int address, int[] subroutineAddresses) {
+    CallContext context = root;
+    for (int subroutineAddress : subroutineAddresses) {
+      context = context.getChild(subroutineAddress);
+    }
+
+    addressCounts[address & (Memory.SIZE - 1)]++;
+    context.count++;
+    totalCount++;
+  }
+
+  public long getTotalCount() {
+    return totalCount;
+  }
+
+  public long getAddressCount(int address) {
+    return addressCounts[address];
+  }
+
+  /**
+   * Returns the addresses with the highest counts, highest first.
+   */
+  public List<Integer> getHottestAddresses(int maxAddresses) {
+    return IntStream.range(0, Memory.SIZE)
+        .filter(address -> addressCounts[address] > 0)
+        .boxed()
+        .sorted(Comparator.comparingLong((Integer address) -> addressCounts[address]).reversed())
+        .limit(maxAddresses)
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Writes the call stacks in the collapsed format read by flame graph tools: one line per call
+   * stack with the frames separated by semicolons, followed by a space and the count.
+   */
+  public void writeCollapsedStacks(Writer writer) throws IOException {
+    List<String> frames = new ArrayList<>();
+    writeCollapsedStacks(root, frames, writer);
+  }
+
+  private static void writeCollapsedStacks(CallContext context, List<String> frames,
+      Writer writer) throws IOException {
+    frames.add(context.parent == null ? "main" : String.format("sub_%03x", context.address));
+
+    if (context.count > 0) {
+      writer.write(String.join(";", frames) + " " + context.count + "\n");
+    }
+    for (CallContext child : context.children.values()) {
+      writeCollapsedStacks(child, frames, writer);
+    }
+
+    frames.remove(frames.size() - 1);
+  }
+
+  public String toCollapsedStacks() {
+    StringWriter writer = new StringWriter();
+    try {
+      writeCollapsedStacks(writer);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return writer.toString();
+  }
+
+  private static class CallContext {
+
+    private final CallContext parent;
+    private final int address;
+    private final Map<Integer, CallContext> children = new TreeMap<>();
+    private long count;
+
+    CallContext(CallContext parent, int address) {
+      this.parent = parent;
+      this.address = address;
+    }
+
+    CallContext getChild(int address) {
+      return children.computeIfAbsent(address, childAddress -> new CallContext(this, childAddress));
+    }
+  }
+}
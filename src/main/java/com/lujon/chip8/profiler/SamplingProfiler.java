@@ -0,0 +1,79 @@
+package com.lujon.chip8.profiler;
+
+import com.lujon.chip8.cpu.CPU;
+import com.lujon.chip8.memory.Memory;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Samples the executing address and call stack of a running CPU from a background thread at a
+ * fixed interval. While sampling, the emulator thread does no more than publish the address of each
+ * instruction it fetches, at the price of samples that may be slightly inconsistent when taken in
+ * the middle of a call or return. With the block engine, samples land on the start of the running
+ * block.
+ */
+public class SamplingProfiler implements AutoCloseable {
+
+  private final CPU cpu;
+  private final Memory memory;
+  private final long intervalNanos;
+  private final Profile profile = new Profile();
+  private final Thread samplingThread;
+  private volatile boolean running = true;
+
+  public SamplingProfiler(CPU cpu, Memory memory, long interval, TimeUnit unit) {
+    this.cpu = cpu;
+    this.memory = memory;
+    this.intervalNanos = unit.toNanos(interval);
+    cpu.setPublishingCurrentAddress(true);
+    this.samplingThread = new Thread(this::sampleUntilClosed, "chip8-sampling-profiler");
+    this.samplingThread.setDaemon(true);
+    this.samplingThread.start();
+  }
+
+  private void sampleUntilClosed() {
+    while (running) {
+      LockSupport.parkNanos(intervalNanos);
+      sample();
+    }
+  }
+
+  private void sample() {
+    int address = cpu.getCurrentAddress();
+
+    // The stack holds return addresses, most recent first; the 2nnn before each names the callee
+    Deque<Integer> stack = cpu.getStack();
+    int[] subroutineAddresses = new int[stack.size()];
+    Iterator<Integer> returnAddresses = stack.descendingIterator();
+    for (int i = 0; i < subroutineAddresses.length; i++) {
+      int callAddress = (returnAddresses.next() - 2) & (Memory.SIZE - 1);
+      int callInstruction = (memory.getByte(callAddress) & 0xFF) << 8
+          | memory.getByte((callAddress + 1) & (Memory.SIZE - 1)) & 0xFF;
+      subroutineAddresses[i] = callInstruction & 0x0FFF;
+    }
+
+    profile.sample(address, subroutineAddresses);
+  }
+
+  /**
+   * Stops sampling and waits for the sampling thread to finish. The profile is complete afterwards,
+   * unless the calling thread is interrupted while waiting.
+   */
+  @Override
+  public void close() {
+    running = false;
+    LockSupport.unpark(samplingThread);
+    try {
+      samplingThread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    cpu.setPublishingCurrentAddress(false);
+  }
+
+  public Profile getProfile() {
+    return profile;
+  }
+}
@@ -0,0 +1,39 @@
+package com.lujon.chip8.rom;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A ROM file mapped into memory, identified by the SHA-256 hash of its contents.
+ */
+public class Rom {
+
+  private final String name;
+  private final String contentHash;
+  private final ByteBuffer data;
+
+  Rom(String name, String contentHash, ByteBuffer data) {
+    this.name = name;
+    this.contentHash = contentHash;
+    this.data = data;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public String getContentHash() {
+    return contentHash;
+  }
+
+  /**
+   * Returns a read-only view of the ROM contents.
+   */
+  public ByteBuffer getData() {
+    return data.asReadOnlyBuffer();
+  }
+
+  @Override
+  public String toString() {
+    return name + " (" + contentHash + ")";
+  }
+}
@@ -0,0 +1,111 @@
+package com.lujon.chip8.rom;
+
+import com.lujon.chip8.cpu.DecodedProgram;
+import com.lujon.chip8.memory.Memory;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * The {@code .ch8} files of a directory, memory-mapped and indexed by name and by content hash.
+ * Decoded programs are kept in a least-recently-used cache keyed by content hash, so that starting
+ * a ROM that was started recently needs neither loading nor decoding. ROMs with the same contents
+ * share cache entries. The library is safe to use from several threads.
+ */
+public class RomLibrary {
+
+  private static final String ROM_FILE_PATTERN = "*.ch8";
+
+  private final Map<String, Rom> romsByName = new TreeMap<>();
+  private final Map<String, Rom> romsByContentHash = new LinkedHashMap<>();
+  private final Map<String, DecodedProgram> decodedPrograms;
+
+  public RomLibrary(Path directory, int maxDecodedPrograms) throws IOException {
+    this.decodedPrograms = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, DecodedProgram> eldest) {
+        return size() > maxDecodedPrograms;
+      }
+    };
+
+    try (DirectoryStream<Path> romFiles = Files.newDirectoryStream(directory, ROM_FILE_PATTERN)) {
+      for (Path romFile : romFiles) {
+        Rom rom = mapRom(romFile);
+        romsByName.put(rom.getName(), rom);
+        romsByContentHash.putIfAbsent(rom.getContentHash(), rom);
+      }
+    }
+  }
+
+  private static Rom mapRom(Path romFile) throws IOException {
+    try (FileChannel channel = FileChannel.open(romFile, StandardOpenOption.READ)) {
+      // The mapping stays valid after the channel is closed
+      MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      return new Rom(romFile.getFileName().toString(), contentHash(data), data);
+    }
+  }
+
+  private static String contentHash(ByteBuffer data) {
+    MessageDigest messageDigest;
+    try {
+      messageDigest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+    messageDigest.update(data.duplicate());
+
+    StringBuilder hash = new StringBuilder();
+    for (byte b : messageDigest.digest()) {
+      hash.append(String.format("%02x", b));
+    }
+    return hash.toString();
+  }
+
+  public Collection<Rom> getRoms() {
+    return Collections.unmodifiableCollection(romsByName.values());
+  }
+
+  public Optional<Rom> findByName(String name) {
+    return Optional.ofNullable(romsByName.get(name));
+  }
+
+  public Optional<Rom> findByContentHash(String contentHash) {
+    return Optional.ofNullable(romsByContentHash.get(contentHash));
+  }
+
+  /**
+   * Returns a memory loaded with the font and the ROM.
+   */
+  public Memory load(Rom rom) {
+    Memory memory = new Memory();
+    memory.init(rom.getData());
+    return memory;
+  }
+
+  /**
+   * Returns the decoded form of the ROM, decoding it only if it is not in the cache.
+   */
+  public DecodedProgram getDecodedProgram(Rom rom) {
+    synchronized (decodedPrograms) {
+      DecodedProgram decodedProgram = decodedPrograms.get(rom.getContentHash());
+      if (decodedProgram == null) {
+        decodedProgram = DecodedProgram.decode(load(rom));
+        decodedPrograms.put(rom.getContentHash(), decodedProgram);
+      }
+      return decodedProgram;
+    }
+  }
+}
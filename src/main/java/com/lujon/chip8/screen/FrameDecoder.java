@@ -0,0 +1,75 @@
+package com.lujon.chip8.screen;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Rebuilds frames written by {@link FrameEncoder}, bit for bit.
+ */
+public class FrameDecoder {
+
+  private final long[] rows = new long[Screen.HEIGHT];
+  private boolean hasKeyframe;
+
+  /**
+   * Reads one frame from the buffer's position and applies it to the current frame.
+   *
+   * @throws IllegalStateException if the first frame decoded is not a keyframe
+   * @throws IllegalArgumentException if the frame is malformed
+   */
+  public void decode(ByteBuffer buffer) {
+    byte type = buffer.get();
+
+    if (type == FrameEncoder.KEYFRAME) {
+      for (int y = 0; y < Screen.HEIGHT; y++) {
+        rows[y] = 0;
+      }
+      hasKeyframe = true;
+    } else if (type != FrameEncoder.DELTA) {
+      throw new IllegalArgumentException("Not a frame type: " + type);
+    } else if (!hasKeyframe) {
+      throw new IllegalStateException("Delta frame before the first keyframe");
+    }
+
+    int numRuns = buffer.get() & 0xFF;
+    for (int run = 0; run < numRuns; run++) {
+      int startRow = buffer.get() & 0xFF;
+      int numRows = buffer.get() & 0xFF;
+      if (startRow + numRows > Screen.HEIGHT) {
+        throw new IllegalArgumentException("Rows out of range: " + startRow + "+" + numRows);
+      }
+
+      for (int y = startRow; y < startRow + numRows; y++) {
+        rows[y] ^= getRowDelta(buffer);
+      }
+    }
+  }
+
+  private static long getRowDelta(ByteBuffer buffer) {
+    int mask = buffer.get() & 0xFF;
+    long delta = 0;
+    for (int i = 0; i < Long.BYTES; i++) {
+      if ((mask & (0x80 >>> i)) != 0) {
+        delta |= (long) (buffer.get() & 0xFF) << (Long.SIZE - Byte.SIZE * (i + 1));
+      }
+    }
+    return delta;
+  }
+
+  /**
+   * Returns row y of the current frame with the leftmost pixel in the most significant bit.
+   */
+  public long getRow(int y) {
+    return rows[y];
+  }
+
+  public boolean getPixel(int x, int y) {
+    return (rows[y] << x) < 0;
+  }
+
+  /**
+   * Shows the current frame on the screen, marking the rows that differ as dirty.
+   */
+  public void copyTo(Screen screen) {
+    screen.setRows(rows);
+  }
+}
@@ -0,0 +1,126 @@
+package com.lujon.chip8.screen;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encodes successive frames of a {@link Screen} as the rows that changed since the previous frame,
+ * for {@link FrameDecoder} to rebuild. Every frame is:
+ *
+ * <pre>
+ * type        1 byte, KEYFRAME or DELTA
+ * numRuns     1 byte
+ * runs        numRuns times:
+ *   startRow  1 byte
+ *   numRows   1 byte
+ *   rows      numRows times:
+ *     mask    1 byte, bit 7 - i set if byte i of the row changed, leftmost byte first
+ *     bytes   the changed bytes, XORed with the previous frame
+ * </pre>
+ *
+ * <p>A keyframe is encoded the same way relative to a blank screen, so a decoder can start from
+ * any keyframe. Frames are written into the caller's buffer without allocating.
+ */
+public class FrameEncoder {
+
+  static final byte KEYFRAME = 1;
+  static final byte DELTA = 2;
+
+  private static final int BYTES_PER_ROW = Long.BYTES;
+
+  /**
+   * The most bytes a single encoded frame can take.
+   */
+  public static final int MAX_FRAME_SIZE = 2 + Screen.HEIGHT / 2 * 2
+      + Screen.HEIGHT * (1 + BYTES_PER_ROW);
+
+  private final int keyframeInterval;
+  private final long[] previousRows = new long[Screen.HEIGHT];
+  private int framesSinceKeyframe;
+  private boolean keyframeRequested = true;
+
+  /**
+   * Creates an encoder that writes a keyframe first and then every given number of frames.
+   */
+  public FrameEncoder(int keyframeInterval) {
+    if (keyframeInterval < 1) {
+      throw new IllegalArgumentException("Keyframe interval must be positive: " + keyframeInterval);
+    }
+    this.keyframeInterval = keyframeInterval;
+  }
+
+  /**
+   * Makes the next frame a keyframe, for example when a new client starts decoding.
+   */
+  public void requestKeyframe() {
+    keyframeRequested = true;
+  }
+
+  /**
+   * Writes the current contents of the screen at the buffer's position.
+   *
+   * @return whether a keyframe was written
+   * @throws java.nio.BufferOverflowException if the buffer has too little room left;
+   *     {@link #MAX_FRAME_SIZE} bytes are always enough
+   */
+  public boolean encode(Screen screen, ByteBuffer buffer) {
+    boolean keyframe = keyframeRequested || framesSinceKeyframe + 1 >= keyframeInterval;
+    if (keyframe) {
+      for (int y = 0; y < Screen.HEIGHT; y++) {
+        previousRows[y] = 0;
+      }
+      framesSinceKeyframe = 0;
+      keyframeRequested = false;
+    } else {
+      framesSinceKeyframe++;
+    }
+
+    buffer.put(keyframe ? KEYFRAME : DELTA);
+    int numRunsPosition = buffer.position();
+    buffer.put((byte) 0);
+
+    int numRuns = 0;
+    int y = 0;
+    while (y < Screen.HEIGHT) {
+      if (screen.getRow(y) == previousRows[y]) {
+        y++;
+        continue;
+      }
+
+      int startRow = y;
+      while (y < Screen.HEIGHT && screen.getRow(y) != previousRows[y]) {
+        y++;
+      }
+
+      buffer.put((byte) startRow);
+      buffer.put((byte) (y - startRow));
+      for (int row = startRow; row < y; row++) {
+        putRowDelta(buffer, screen.getRow(row) ^ previousRows[row]);
+        previousRows[row] = screen.getRow(row);
+      }
+      numRuns++;
+    }
+
+    buffer.put(numRunsPosition, (byte) numRuns);
+    return keyframe;
+  }
+
+  private static void putRowDelta(ByteBuffer buffer, long delta) {
+    int mask = 0;
+    for (int i = 0; i < BYTES_PER_ROW; i++) {
+      if (byteOf(delta, i) != 0) {
+        mask |= 0x80 >>> i;
+      }
+    }
+
+    buffer.put((byte) mask);
+    for (int i = 0; i < BYTES_PER_ROW; i++) {
+      if ((mask & (0x80 >>> i)) != 0) {
+        buffer.put(byteOf(delta, i));
+      }
+    }
+  }
+
+  private static byte byteOf(long row, int index) {
+    return (byte) (row >>> (Long.SIZE - Byte.SIZE * (index + 1)));
+  }
+}
@@ -0,0 +1,48 @@
+package com.lujon.chip8.screen;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands completed frames from one producer thread to one consumer thread without locks. Each side
+ * owns one of three buffers and the third sits in between; publishing and acquiring swap a buffer
+ * with the one in between, so neither side ever waits for the other. The consumer always gets the
+ * latest published frame and frames it was too slow for are skipped.
+ */
+public class FrameTripleBuffer {
+
+  private static final int INDEX_MASK = 3;
+  private static final int NEW_FRAME = 4;
+
+  private final long[][] buffers = new long[3][Screen.HEIGHT];
+  // Index of the buffer in between, with NEW_FRAME set if it holds a frame not yet acquired
+  private final AtomicInteger middle = new AtomicInteger(1);
+  private int back = 0;
+  private int front = 2;
+
+  /**
+   * Copies the rows into the back buffer and makes them the latest frame. Called by the producer
+   * only.
+   */
+  public void publish(long[] rows) {
+    System.arraycopy(rows, 0, buffers[back], 0, Screen.HEIGHT);
+    back = middle.getAndSet(back | NEW_FRAME) & INDEX_MASK;
+  }
+
+  /**
+   * Whether a frame has been published since the last one was acquired.
+   */
+  public boolean hasNewFrame() {
+    return (middle.get() & NEW_FRAME) != 0;
+  }
+
+  /**
+   * Returns the latest published frame, which stays unchanged until the next call. Called by the
+   * consumer only.
+   */
+  public long[] acquireLatest() {
+    if (hasNewFrame()) {
+      front = middle.getAndSet(front) & INDEX_MASK;
+    }
+    return buffers[front];
+  }
+}
@@ -1,21 +1,32 @@
 package com.lujon.chip8.screen;
 
 import java.awt.BorderLayout;
-import java.awt.Color;
-import java.awt.geom.AffineTransform;
-import java.awt.image.AffineTransformOp;
-import java.awt.image.BufferedImage;
+import java.lang.reflect.InvocationTargetException;
 import java.util.Arrays;
-import javax.swing.ImageIcon;
 import javax.swing.JFrame;
-import javax.swing.JLabel;
+import javax.swing.SwingUtilities;
 import javax.swing.WindowConstants;
 
 public class Screen {
 
-  private final JFrame frame;
+  static final int WIDTH = 64;
+  static final int HEIGHT = 32;
+  private static final int SCALE = 10;
+  private static final long GOLDEN_RATIO_64 = 0x9E3779B97F4A7C15L;
+  private static final long BLANK_DIGEST = blankDigest();
+  // Arrays.hashCode terms of 8 pixels, and the factor that shifts a row hash past 8 pixels
+  private static final int[] BYTE_HASH_TERMS = byteHashTerms();
+  private static final int HASH_MULTIPLIER_PER_BYTE = pow31(Byte.SIZE);
+
+  private final ScreenPanel panel;
   private final boolean displayScreen;
-  private boolean[][] pixels = new boolean[32][64];
+  // One row per long, with the leftmost pixel in the most significant bit
+  private final long[] rows = new long[HEIGHT];
+  // Rows changed since the last draw, from dirtyRowStart up to but excluding dirtyRowEnd
+  private int dirtyRowStart = HEIGHT;
+  private int dirtyRowEnd = 0;
+  // Kept up to date as rows change
+  private long digest = BLANK_DIGEST;
 
   public Screen() {
     this(true);
@@ -25,64 +36,189 @@ public class Screen {
     this.displayScreen = displayScreen;
 
     if (displayScreen) {
-      this.frame = new JFrame("Chip-8");
-      this.frame.setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE);
-      this.frame.setLocationRelativeTo(null);
-      this.frame.setVisible(true);
+      this.panel = openWindow();
     } else {
-      this.frame = null;
+      this.panel = null;
     }
   }
 
+  /**
+   * Builds the panel and its frame on the event dispatch thread and waits until they are shown.
+   */
+  private static ScreenPanel openWindow() {
+    ScreenPanel[] panel = new ScreenPanel[1];
+    Runnable open = () -> {
+      panel[0] = new ScreenPanel(WIDTH, HEIGHT, SCALE);
+      JFrame frame = new JFrame("Chip-8");
+      frame.setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE);
+      frame.getContentPane().add(panel[0], BorderLayout.CENTER);
+      frame.pack();
+      frame.setLocationRelativeTo(null);
+      frame.setVisible(true);
+    };
+
+    if (SwingUtilities.isEventDispatchThread()) {
+      open.run();
+      return panel[0];
+    }
+    try {
+      SwingUtilities.invokeAndWait(open);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while opening the screen window", e);
+    } catch (InvocationTargetException e) {
+      throw new IllegalStateException("Could not open the screen window", e.getCause());
+    }
+    return panel[0];
+  }
+
   public int getWidth() {
-    return pixels[0].length;
+    return WIDTH;
   }
 
   public int getHeight() {
-    return pixels.length;
+    return HEIGHT;
   }
 
   public boolean getPixel(int x, int y) {
-    return pixels[y][x];
+    return (rows[y] << x) < 0;
   }
 
-  public void setPixel(int x, int y, boolean pixelOn) {
-    pixels[y][x] = pixelOn;
+  /**
+   * Returns row y with the leftmost pixel in the most significant bit.
+   */
+  public long getRow(int y) {
+    return rows[y];
   }
 
-  public void clear() {
-    pixels = new boolean[32][64];
+  public long[] copyRows() {
+    return rows.clone();
   }
 
-  public void draw() {
-    if (!displayScreen) {
-      return;
+  /**
+   * Replaces all rows, given with the leftmost pixel in the most significant bit.
+   */
+  public void setRows(long[] newRows) {
+    for (int y = 0; y < HEIGHT; y++) {
+      if (rows[y] != newRows[y]) {
+        replaceRow(y, newRows[y]);
+      }
+    }
+  }
+
+  public void setPixel(int x, int y, boolean pixelOn) {
+    long pixelBit = Long.MIN_VALUE >>> x;
+    long row = pixelOn ? rows[y] | pixelBit : rows[y] & ~pixelBit;
+
+    if (row != rows[y]) {
+      replaceRow(y, row);
     }
+  }
 
-    BufferedImage image = new BufferedImage(getWidth(), getHeight(), BufferedImage.TYPE_INT_ARGB);
+  /**
+   * XORs an 8 pixel wide sprite row onto row y, starting at column x. Pixels past the right edge
+   * are clipped.
+   *
+   * @return true if any pixel that was on has been turned off
+   */
+  public boolean drawSpriteRow(int x, int y, byte spriteRow) {
+    long spriteBits = (long) (spriteRow & 0xFF) << 56 >>> x;
+    long row = rows[y];
+
+    if (spriteBits != 0) {
+      replaceRow(y, row ^ spriteBits);
+    }
 
-    for (int y = 0; y < getHeight(); y++) {
-      for (int x = 0; x < getWidth(); x++) {
-        image.setRGB(x, y, pixels[y][x] ? Color.WHITE.getRGB() : Color.BLACK.getRGB());
+    return (row & spriteBits) != 0;
+  }
+
+  public void clear() {
+    for (int y = 0; y < HEIGHT; y++) {
+      if (rows[y] != 0) {
+        replaceRow(y, 0);
       }
     }
+  }
 
-    BufferedImage after = new BufferedImage(getWidth()*10, getHeight()*10, BufferedImage.TYPE_INT_ARGB);
-    AffineTransform at = new AffineTransform();
-    at.scale(10.0, 10.0);
-    AffineTransformOp scaleOp =
-        new AffineTransformOp(at, AffineTransformOp.TYPE_NEAREST_NEIGHBOR);
-    after = scaleOp.filter(image, after);
+  /**
+   * Returns true if any pixel has changed since the screen was last drawn.
+   */
+  public boolean isDirty() {
+    return dirtyRowStart < dirtyRowEnd;
+  }
 
+  public int getDirtyRowStart() {
+    return dirtyRowStart;
+  }
 
-    ImageIcon imageIcon = new ImageIcon(after);
-    JLabel jLabel = new JLabel();
-    jLabel.setIcon(imageIcon);
-    frame.getContentPane().removeAll();
-    frame.getContentPane().add(jLabel, BorderLayout.CENTER);
+  public int getDirtyRowEnd() {
+    return dirtyRowEnd;
+  }
 
-    frame.pack();
-    frame.repaint();
+  private void replaceRow(int y, long row) {
+    digest ^= rowDigest(y, rows[y]) ^ rowDigest(y, row);
+    rows[y] = row;
+    markRowDirty(y);
+  }
+
+  /**
+   * Returns a 64-bit digest of the pixels. It is updated as rows change, so reading it costs
+   * nothing, and two screens with different pixels have different digests with overwhelming
+   * probability.
+   */
+  public long getDigest() {
+    return digest;
+  }
+
+  /**
+   * Returns the digest a screen with the given rows would have.
+   */
+  public static long digestOf(long[] rows) {
+    long digest = BLANK_DIGEST;
+    for (int y = 0; y < HEIGHT; y++) {
+      digest ^= rowDigest(y, 0) ^ rowDigest(y, rows[y]);
+    }
+    return digest;
+  }
+
+  // The digest is the XOR of a hash of every row and its index, so one row can be swapped out
+  private static long rowDigest(int y, long row) {
+    long hash = row ^ (y + 1) * GOLDEN_RATIO_64;
+
+    // MurmurHash3 finalizer
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+
+    return hash;
+  }
+
+  private static long blankDigest() {
+    long digest = 0;
+    for (int y = 0; y < HEIGHT; y++) {
+      digest ^= rowDigest(y, 0);
+    }
+    return digest;
+  }
+
+  private void markRowDirty(int y) {
+    dirtyRowStart = Math.min(dirtyRowStart, y);
+    dirtyRowEnd = Math.max(dirtyRowEnd, y + 1);
+  }
+
+  /**
+   * Hands the current frame to the window and schedules a repaint of the rows changed since the last
+   * draw. The pixels themselves are updated on the event dispatch thread, so this never blocks.
+   */
+  public void draw() {
+    if (displayScreen && isDirty()) {
+      panel.present(rows, dirtyRowStart, dirtyRowEnd);
+    }
+
+    dirtyRowStart = HEIGHT;
+    dirtyRowEnd = 0;
   }
 
   @Override
@@ -94,11 +230,43 @@ public class Screen {
       return false;
     }
     Screen screen = (Screen) o;
-    return Arrays.equals(pixels, screen.pixels);
+    return digest == screen.digest && Arrays.equals(rows, screen.rows);
   }
 
+  /**
+   * Same value as {@link Arrays#deepHashCode} of the screen as a {@code boolean[height][width]}.
+   */
   @Override
   public int hashCode() {
-    return Arrays.deepHashCode(pixels);
+    int hash = 1;
+
+    for (long row : rows) {
+      int rowHash = 1;
+      for (int shift = Long.SIZE - Byte.SIZE; shift >= 0; shift -= Byte.SIZE) {
+        int pixels = (int) (row >>> shift) & 0xFF;
+        rowHash = HASH_MULTIPLIER_PER_BYTE * rowHash + BYTE_HASH_TERMS[pixels];
+      }
+      hash = 31 * hash + rowHash;
+    }
+
+    return hash;
+  }
+
+  private static int[] byteHashTerms() {
+    int[] terms = new int[1 << Byte.SIZE];
+    for (int pixels = 0; pixels < terms.length; pixels++) {
+      for (int bit = Byte.SIZE - 1; bit >= 0; bit--) {
+        terms[pixels] = 31 * terms[pixels] + Boolean.hashCode((pixels >>> bit & 1) != 0);
+      }
+    }
+    return terms;
+  }
+
+  private static int pow31(int exponent) {
+    int power = 1;
+    for (int i = 0; i < exponent; i++) {
+      power *= 31;
+    }
+    return power;
   }
 }
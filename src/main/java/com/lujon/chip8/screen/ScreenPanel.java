@@ -0,0 +1,83 @@
+package com.lujon.chip8.screen;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import javax.swing.JComponent;
+
+/**
+ * Swing component showing the screen through a single pre-scaled image. Frames arrive from the
+ * emulation thread through a triple buffer and are only turned into pixels while painting, so the
+ * image is touched on the event dispatch thread alone. Rows are written straight into the image's
+ * pixel array, so updating the picture allocates nothing.
+ */
+class ScreenPanel extends JComponent {
+
+  private static final long serialVersionUID = 1L;
+
+  private static final int PIXEL_ON = Color.WHITE.getRGB();
+  private static final int PIXEL_OFF = Color.BLACK.getRGB();
+
+  private final int width;
+  private final int scale;
+  private final BufferedImage image;
+  private final int[] imagePixels;
+  private final FrameTripleBuffer frames = new FrameTripleBuffer();
+  // The rows the image currently shows
+  private final long[] shownRows;
+
+  ScreenPanel(int width, int height, int scale) {
+    this.width = width;
+    this.scale = scale;
+    this.image = new BufferedImage(width * scale, height * scale, BufferedImage.TYPE_INT_RGB);
+    this.imagePixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    this.shownRows = new long[height];
+
+    setPreferredSize(new Dimension(width * scale, height * scale));
+    setOpaque(true);
+  }
+
+  /**
+   * Hands a frame to the event dispatch thread and asks for the changed rows to be repainted. Does
+   * not block; called from the emulation thread only.
+   */
+  void present(long[] rows, int startRow, int endRow) {
+    frames.publish(rows);
+    repaint(0, startRow * scale, width * scale, (endRow - startRow) * scale);
+  }
+
+  private void updateRow(int y, long row) {
+    int scaledWidth = width * scale;
+    int lineStart = y * scale * scaledWidth;
+
+    int offset = lineStart;
+    for (int x = 0; x < width; x++) {
+      int color = (row << x) < 0 ? PIXEL_ON : PIXEL_OFF;
+      for (int i = 0; i < scale; i++) {
+        imagePixels[offset++] = color;
+      }
+    }
+
+    for (int line = 1; line < scale; line++) {
+      System.arraycopy(imagePixels, lineStart, imagePixels, lineStart + line * scaledWidth,
+          scaledWidth);
+    }
+  }
+
+  @Override
+  protected void paintComponent(Graphics graphics) {
+    if (frames.hasNewFrame()) {
+      long[] rows = frames.acquireLatest();
+      for (int y = 0; y < shownRows.length; y++) {
+        if (rows[y] != shownRows[y]) {
+          updateRow(y, rows[y]);
+          shownRows[y] = rows[y];
+        }
+      }
+    }
+
+    graphics.drawImage(image, 0, 0, null);
+  }
+}
@@ -1,12 +1,16 @@
 package com.lujon.chip8;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
 
+import com.lujon.chip8.cpu.RandomNumberGenerator;
 import com.lujon.chip8.memory.Memory;
 import com.lujon.chip8.screen.Screen;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 import org.junit.Test;
 
 public class Chip8EmulatorTest {
@@ -25,4 +29,132 @@ public class Chip8EmulatorTest {
 
     assertEquals(1999623313, screen.hashCode());
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testRunHeadlessStopsAfterInstructions() throws IOException {
+    Screen screen = new Screen(false);
+    Chip8Emulator chip8Emulator = new Chip8Emulator(loadRom("ibm-logo.ch8"), screen);
+
+    RunReport runReport = chip8Emulator.runHeadless(10, StopCondition.afterInstructions(20));
+
+    assertEquals(20, runReport.getNumInstructions());
+    assertEquals(2, runReport.getNumFrames());
+    assertEquals(1999623313, screen.hashCode());
+  }
+
+  @Test
+  public void testRunHeadlessStopsAfterFrames() throws IOException {
+    Chip8Emulator chip8Emulator = new Chip8Emulator(loadRom("ibm-logo.ch8"), new Screen(false));
+
+    RunReport runReport = chip8Emulator.runHeadless(7, StopCondition.afterFrames(3));
+
+    assertEquals(21, runReport.getNumInstructions());
+    assertEquals(3, runReport.getNumFrames());
+  }
+
+  @Test
+  public void testRunHeadlessStopsAtAddress() throws IOException {
+    Screen screen = new Screen(false);
+    Chip8Emulator chip8Emulator = new Chip8Emulator(loadRom("ibm-logo.ch8"), screen);
+
+    // The logo is complete when the program reaches its final jump-to-self at 0x228
+    RunReport runReport = chip8Emulator.runHeadless(10,
+        StopCondition.atAddress(0x228).or(StopCondition.afterInstructions(1000)));
+
+    assertEquals(20, runReport.getNumInstructions());
+    assertEquals(1999623313, screen.hashCode());
+  }
+
+  @Test
+  public void testRunHeadlessStopsAfterWallTime() throws IOException {
+    Chip8Emulator chip8Emulator = new Chip8Emulator(loadRom("ibm-logo.ch8"), new Screen(false));
+
+    RunReport runReport = chip8Emulator.runHeadless(10,
+        StopCondition.afterWallTime(50, TimeUnit.MILLISECONDS));
+
+    assertTrue(runReport.getElapsedNanos() >= TimeUnit.MILLISECONDS.toNanos(50));
+    assertTrue(runReport.getInstructionsPerSecond() > 0);
+  }
+
+  @Test
+  public void testRestoreSnapshot() throws IOException {
+    Chip8Emulator chip8Emulator =
+        new Chip8Emulator(loadRom("ibm-logo.ch8"), new Screen(false), new RandomNumberGenerator(1));
+    chip8Emulator.runFixedCycles(10);
+
+    MachineState state = chip8Emulator.snapshot();
+    long digest = chip8Emulator.getStateDigest();
+
+    chip8Emulator.runFixedCycles(10);
+
+    assertNotEquals(digest, chip8Emulator.getStateDigest());
+
+    chip8Emulator.restore(state);
+
+    assertEquals(digest, chip8Emulator.getStateDigest());
+  }
+
+  @Test
+  public void testRestoredRandomNumbersRepeat() {
+    Memory memory = new Memory();
+    // V0 := random, V1 := random
+    memory.init(new byte[] {(byte) 0xC0, (byte) 0xFF, (byte) 0xC1, (byte) 0xFF});
+    Chip8Emulator chip8Emulator =
+        new Chip8Emulator(memory, new Screen(false), new RandomNumberGenerator(1));
+
+    MachineState state = chip8Emulator.snapshot();
+    chip8Emulator.runFixedCycles(2);
+    long digest = chip8Emulator.getStateDigest();
+
+    chip8Emulator.restore(state);
+    chip8Emulator.runFixedCycles(2);
+
+    assertEquals(digest, chip8Emulator.getStateDigest());
+  }
+
+  @Test
+  public void testForkRunsIndependently() throws IOException {
+    Screen screen = new Screen(false);
+    Chip8Emulator chip8Emulator =
+        new Chip8Emulator(loadRom("test_opcode.ch8"), screen, new RandomNumberGenerator(1));
+    chip8Emulator.runFixedCycles(100);
+
+    Chip8Emulator fork = chip8Emulator.fork();
+
+    assertEquals(chip8Emulator.getStateDigest(), fork.getStateDigest());
+
+    long digest = chip8Emulator.getStateDigest();
+    fork.runFixedCycles(1000);
+
+    assertEquals(digest, chip8Emulator.getStateDigest());
+
+    chip8Emulator.runFixedCycles(1000);
+
+    assertEquals(chip8Emulator.getStateDigest(), fork.getStateDigest());
+  }
+
+  @Test
+  public void testSkippingIdleLoopsKeepsStateIdentical() throws IOException {
+    for (String romName : new String[] {"ibm-logo.ch8", "test_opcode.ch8", "bc_test.ch8"}) {
+      Chip8Emulator chip8Emulator = new Chip8Emulator(loadRom(romName), new Screen(false));
+      Chip8Emulator skippingChip8Emulator =
+          new Chip8Emulator(loadRom(romName), new Screen(false), true);
+      skippingChip8Emulator.setSkipIdleLoops(true);
+
+      for (int frame = 0; frame < 200; frame++) {
+        chip8Emulator.runFrame(7);
+        skippingChip8Emulator.runFrame(7);
+
+        assertEquals(romName + " frame " + frame, chip8Emulator.getStateDigest(),
+            skippingChip8Emulator.getStateDigest());
+      }
+    }
+  }
+
+  private Memory loadRom(String romName) throws IOException {
+    Memory memory = new Memory();
+    InputStream romStream = memory.getClass().getClassLoader().getResourceAsStream(romName);
+    memory.init(Objects.requireNonNull(Objects.requireNonNull(romStream).readAllBytes()));
+    return memory;
+  }
+}
@@ -0,0 +1,89 @@
+package com.lujon.chip8;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.lujon.chip8.memory.Memory;
+import com.lujon.chip8.screen.Screen;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+
+public class FlightRecorderEventsTest {
+
+  @Test
+  public void testRealTimeLoopRecordsFramesSpritesAndPresents() throws Exception {
+    Memory memory = new Memory();
+    InputStream romStream = memory.getClass().getClassLoader().getResourceAsStream("ibm-logo.ch8");
+    memory.init(Objects.requireNonNull(Objects.requireNonNull(romStream).readAllBytes()));
+    Chip8Emulator chip8Emulator = new Chip8Emulator(memory, new Screen(false));
+
+    List<RecordedEvent> events = record(() -> {
+      Thread emulatorThread = new Thread(() -> {
+        try {
+          chip8Emulator.run();
+        } catch (InterruptedException e) {
+          // Stopped by the test
+        }
+      });
+      emulatorThread.start();
+      Thread.sleep(200);
+      emulatorThread.interrupt();
+      emulatorThread.join();
+    });
+
+    List<RecordedEvent> spriteDraws = eventsNamed(events, "com.lujon.chip8.SpriteDraws");
+    long numDraws = spriteDraws.stream().mapToLong(event -> event.getLong("numDraws")).sum();
+
+    assertFalse(eventsNamed(events, "com.lujon.chip8.Frames").isEmpty());
+    assertFalse(eventsNamed(events, "com.lujon.chip8.ScreenPresent").isEmpty());
+    assertEquals(6, numDraws);
+  }
+
+  @Test
+  public void testSchedulerReportsDroppedFrames() throws Exception {
+    List<RecordedEvent> events = record(() -> {
+      FrameScheduler frameScheduler = new FrameScheduler(20_000_000L, 2);
+      Thread.sleep(200);
+      frameScheduler.awaitFrames();
+    });
+
+    List<RecordedEvent> stalls = eventsNamed(events, "com.lujon.chip8.SchedulerStall");
+
+    assertEquals(1, stalls.size());
+    assertEquals(1, stalls.get(0).getInt("numCatchUpFrames"));
+    assertTrue(stalls.get(0).getLong("numDroppedFrames") > 0);
+  }
+
+  private interface Action {
+    void run() throws Exception;
+  }
+
+  private static List<RecordedEvent> record(Action action) throws Exception {
+    Path recordingFile = Files.createTempFile("chip8", ".jfr");
+    try (Recording recording = new Recording()) {
+      recording.enable("com.lujon.chip8.*");
+      recording.start();
+      action.run();
+      recording.stop();
+      recording.dump(recordingFile);
+      return RecordingFile.readAllEvents(recordingFile);
+    } finally {
+      Files.delete(recordingFile);
+    }
+  }
+
+  private static List<RecordedEvent> eventsNamed(List<RecordedEvent> events, String name) {
+    return events.stream()
+        .filter(event -> event.getEventType().getName().equals(name))
+        .collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,45 @@
+package com.lujon.chip8;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class FrameSchedulerTest {
+
+  @Test
+  public void testFirstFrameIsDueImmediately() throws InterruptedException {
+    FrameScheduler frameScheduler = new FrameScheduler(5);
+
+    assertEquals(1, frameScheduler.awaitFrames());
+  }
+
+  @Test
+  public void testWaitsForNextFrame() throws InterruptedException {
+    long frameInterval = TimeUnit.MILLISECONDS.toNanos(20);
+    FrameScheduler frameScheduler = new FrameScheduler(frameInterval, 5);
+
+    frameScheduler.awaitFrames();
+    long start = System.nanoTime();
+    frameScheduler.awaitFrames();
+
+    assertTrue(System.nanoTime() - start >= frameInterval / 2);
+  }
+
+  @Test
+  public void testCatchUpIsBounded() throws InterruptedException {
+    long frameInterval = TimeUnit.MILLISECONDS.toNanos(20);
+    FrameScheduler frameScheduler = new FrameScheduler(frameInterval, 3);
+
+    frameScheduler.awaitFrames();
+    Thread.sleep(200);
+
+    assertEquals(3, frameScheduler.awaitFrames());
+
+    // The dropped frames are not run later
+    long start = System.nanoTime();
+    assertEquals(1, frameScheduler.awaitFrames());
+    assertTrue(System.nanoTime() - start >= frameInterval / 2);
+  }
+}
@@ -0,0 +1,124 @@
+package com.lujon.chip8;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.lujon.chip8.cpu.RandomNumberGenerator;
+import com.lujon.chip8.memory.Memory;
+import com.lujon.chip8.screen.Screen;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import org.junit.Test;
+
+public class RewindBufferTest {
+
+  // Draws random digits at random positions and loops forever
+  private static final byte[] RANDOM_DIGITS_ROM = new byte[] {
+      (byte) 0xC0, 0x0F,       // 0x200: V0 := random & 0x0F
+      (byte) 0xF0, 0x29,       // 0x202: I := font sprite of V0
+      (byte) 0xC1, 0x3F,       // 0x204: V1 := random & 0x3F
+      (byte) 0xC2, 0x1F,       // 0x206: V2 := random & 0x1F
+      (byte) 0xD1, 0x25,       // 0x208: draw 5 rows at V1, V2
+      0x12, 0x00               // 0x20A: jump to 0x200
+  };
+
+  @Test
+  public void testRewindRestoresEveryRecordedFrame() throws IOException {
+    Chip8Emulator chip8Emulator = createEmulator("test_opcode.ch8");
+    RewindBuffer rewindBuffer = new RewindBuffer(1 << 20);
+    List<Long> digests = new ArrayList<>();
+
+    for (int frame = 0; frame < 100; frame++) {
+      chip8Emulator.runFrame(10);
+      rewindBuffer.record(chip8Emulator.snapshot());
+      digests.add(chip8Emulator.getStateDigest());
+    }
+
+    for (int frame = 98; frame >= 0; frame--) {
+      chip8Emulator.restore(rewindBuffer.rewind());
+
+      assertEquals((long) digests.get(frame), chip8Emulator.getStateDigest());
+    }
+
+    assertFalse(rewindBuffer.canRewind());
+  }
+
+  @Test
+  public void testRecordingAfterRewindStartsNewTimeline() throws IOException {
+    Chip8Emulator chip8Emulator = createEmulator("bc_test.ch8");
+    RewindBuffer rewindBuffer = new RewindBuffer(1 << 20);
+
+    for (int frame = 0; frame < 10; frame++) {
+      chip8Emulator.runFrame(10);
+      rewindBuffer.record(chip8Emulator.snapshot());
+    }
+
+    chip8Emulator.restore(rewindBuffer.rewind());
+    chip8Emulator.restore(rewindBuffer.rewind());
+    long digest = chip8Emulator.getStateDigest();
+
+    chip8Emulator.runFrame(5);
+    rewindBuffer.record(chip8Emulator.snapshot());
+    chip8Emulator.restore(rewindBuffer.rewind());
+
+    assertEquals(digest, chip8Emulator.getStateDigest());
+  }
+
+  @Test
+  public void testOldestFramesAreDroppedToStayInBudget() {
+    Memory memory = new Memory();
+    memory.init(RANDOM_DIGITS_ROM);
+    Chip8Emulator chip8Emulator =
+        new Chip8Emulator(memory, new Screen(false), new RandomNumberGenerator(1));
+    RewindBuffer rewindBuffer = new RewindBuffer(16 * 1024);
+    List<Long> digests = new ArrayList<>();
+
+    for (int frame = 0; frame < 500; frame++) {
+      chip8Emulator.runFrame(10);
+      rewindBuffer.record(chip8Emulator.snapshot());
+      digests.add(chip8Emulator.getStateDigest());
+
+      assertTrue(rewindBuffer.getUsedBytes() <= rewindBuffer.getMemoryBudgetBytes());
+    }
+
+    int numFrames = rewindBuffer.getNumFrames();
+
+    assertTrue(numFrames < 500);
+
+    for (int frame = 498; frame > 499 - numFrames; frame--) {
+      chip8Emulator.restore(rewindBuffer.rewind());
+
+      assertEquals((long) digests.get(frame), chip8Emulator.getStateDigest());
+    }
+
+    assertFalse(rewindBuffer.canRewind());
+  }
+
+  @Test
+  public void testFramesAreStoredAsSmallDeltas() {
+    Memory memory = new Memory();
+    memory.init(RANDOM_DIGITS_ROM);
+    Chip8Emulator chip8Emulator =
+        new Chip8Emulator(memory, new Screen(false), new RandomNumberGenerator(1));
+    RewindBuffer rewindBuffer = new RewindBuffer(8 * 1024 * 1024);
+
+    for (int frame = 0; frame < 3600; frame++) {
+      chip8Emulator.runFrame(10);
+      rewindBuffer.record(chip8Emulator.snapshot());
+    }
+
+    // 60 seconds at 60 frames per second fit without dropping any frames
+    assertEquals(3600, rewindBuffer.getNumFrames());
+  }
+
+  private Chip8Emulator createEmulator(String romName) throws IOException {
+    Memory memory = new Memory();
+    InputStream romStream = memory.getClass().getClassLoader().getResourceAsStream(romName);
+    memory.init(Objects.requireNonNull(Objects.requireNonNull(romStream).readAllBytes()));
+    return new Chip8Emulator(memory, new Screen(false), new RandomNumberGenerator(1));
+  }
+}
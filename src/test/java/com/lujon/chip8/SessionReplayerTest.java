@@ -0,0 +1,96 @@
+package com.lujon.chip8;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.lujon.chip8.cpu.RandomNumberGenerator;
+import com.lujon.chip8.memory.Memory;
+import com.lujon.chip8.screen.Screen;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SessionReplayerTest {
+
+  // Draws random digits at random positions, waiting for the delay timer in between
+  private static final byte[] RANDOM_DIGITS_ROM = new byte[] {
+      (byte) 0xC0, 0x0F,       // 0x200: V0 := random & 0x0F
+      (byte) 0xF0, 0x29,       // 0x202: I := font sprite of V0
+      (byte) 0xC1, 0x3F,       // 0x204: V1 := random & 0x3F
+      (byte) 0xC2, 0x1F,       // 0x206: V2 := random & 0x1F
+      (byte) 0xD1, 0x25,       // 0x208: draw 5 rows at V1, V2
+      0x63, 0x03,              // 0x20A: V3 := 0x03
+      (byte) 0xF3, 0x15,       // 0x20C: delay timer := V3
+      (byte) 0xF3, 0x07,       // 0x20E: V3 := delay timer
+      0x33, 0x00,              // 0x210: skip if V3 == 0
+      0x12, 0x0E,              // 0x212: jump to 0x20E
+      0x12, 0x00               // 0x214: jump to 0x200
+  };
+
+  private Path logPath;
+
+  @Before
+  public void createLogFile() throws IOException {
+    logPath = Files.createTempFile("chip8-session", ".log");
+  }
+
+  @After
+  public void deleteLogFile() throws IOException {
+    Files.deleteIfExists(logPath);
+  }
+
+  @Test
+  public void testReplayMatchesRecording() throws IOException {
+    recordSession(42, 500);
+
+    ReplayResult replayResult = SessionReplayer.replay(logPath, RANDOM_DIGITS_ROM);
+
+    assertFalse(replayResult.hasDiverged());
+    assertEquals(500, replayResult.getNumFrames());
+  }
+
+  @Test
+  public void testReplayDetectsDivergedFrame() throws IOException {
+    recordSession(42, 500);
+
+    // Corrupt the digest of frame 123
+    try (RandomAccessFile logFile = new RandomAccessFile(logPath.toFile(), "rw")) {
+      long digestPosition = SessionRecorder.HEADER_SIZE + 123L * SessionRecorder.FRAME_SIZE + 1;
+      logFile.seek(digestPosition);
+      int digestByte = logFile.read();
+      logFile.seek(digestPosition);
+      logFile.write(digestByte ^ 0xFF);
+    }
+
+    ReplayResult replayResult = SessionReplayer.replay(logPath, RANDOM_DIGITS_ROM);
+
+    assertTrue(replayResult.hasDiverged());
+    assertEquals(123, replayResult.getDivergedFrame());
+  }
+
+  @Test(expected = IOException.class)
+  public void testRejectsFileThatIsNotASessionLog() throws IOException {
+    Files.write(logPath, new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17});
+
+    SessionReplayer.replay(logPath, RANDOM_DIGITS_ROM);
+  }
+
+  private void recordSession(long seed, int numFrames) throws IOException {
+    Memory memory = new Memory();
+    memory.init(RANDOM_DIGITS_ROM);
+    Chip8Emulator chip8Emulator =
+        new Chip8Emulator(memory, new Screen(false), new RandomNumberGenerator(seed));
+
+    try (SessionRecorder sessionRecorder = new SessionRecorder(logPath, seed, 10)) {
+      for (int frame = 0; frame < numFrames; frame++) {
+        chip8Emulator.runFrame(10);
+        sessionRecorder.recordFrame(1, chip8Emulator.getStateDigest());
+      }
+    }
+  }
+}
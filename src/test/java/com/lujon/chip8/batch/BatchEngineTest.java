@@ -0,0 +1,127 @@
+package com.lujon.chip8.batch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.lujon.chip8.cpu.CPU;
+import com.lujon.chip8.cpu.RandomNumberGenerator;
+import com.lujon.chip8.memory.Memory;
+import com.lujon.chip8.screen.Screen;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Objects;
+import org.junit.Test;
+
+public class BatchEngineTest {
+
+  // Draws random digits at random positions and loops forever
+  private static final byte[] RANDOM_DIGITS_ROM = new byte[] {
+      (byte) 0xC0, 0x0F,       // 0x200: V0 := random & 0x0F
+      (byte) 0xF0, 0x29,       // 0x202: I := font sprite of V0
+      (byte) 0xC1, 0x3F,       // 0x204: V1 := random & 0x3F
+      (byte) 0xC2, 0x1F,       // 0x206: V2 := random & 0x1F
+      (byte) 0xD1, 0x25,       // 0x208: draw 5 rows at V1, V2
+      (byte) 0xA3, 0x00,       // 0x20A: I := 0x300
+      (byte) 0xF0, 0x33,       // 0x20C: BCD V0
+      (byte) 0xF2, 0x65,       // 0x20E: load V0-V2
+      0x12, 0x00               // 0x210: jump to 0x200
+  };
+
+  @Test
+  public void testInstancesMatchCpu() throws IOException {
+    byte[][] roms = new byte[][] {
+        loadRom("bc_test.ch8"),
+        loadRom("test_opcode.ch8"),
+        loadRom("ibm-logo.ch8"),
+        RANDOM_DIGITS_ROM,
+        RANDOM_DIGITS_ROM
+    };
+
+    BatchEngine batchEngine = new BatchEngine(roms.length);
+    CPU[] cpus = new CPU[roms.length];
+    Screen[] screens = new Screen[roms.length];
+
+    for (int instance = 0; instance < roms.length; instance++) {
+      batchEngine.load(instance, roms[instance]);
+      batchEngine.seed(instance, instance);
+
+      Memory memory = new Memory();
+      memory.init(roms[instance]);
+      screens[instance] = new Screen(false);
+      cpus[instance] = new CPU(memory, screens[instance], new RandomNumberGenerator(instance));
+    }
+
+    for (int step = 0; step < 3000; step++) {
+      batchEngine.step();
+      for (CPU cpu : cpus) {
+        cpu.executeInstructionFromMemory();
+      }
+      if (step % 10 == 9) {
+        batchEngine.tickTimers();
+        for (CPU cpu : cpus) {
+          cpu.tickTimers();
+        }
+      }
+    }
+
+    for (int instance = 0; instance < roms.length; instance++) {
+      CPU cpu = cpus[instance];
+
+      assertFalse(batchEngine.isFaulted(instance));
+      assertEquals(cpu.getProgramCounter(), batchEngine.getProgramCounter(instance));
+      assertEquals(cpu.getIndexRegister(), batchEngine.getIndexRegister(instance));
+      assertEquals(cpu.getDelayTimer(), batchEngine.getDelayTimer(instance));
+      for (int register = 0; register < 16; register++) {
+        assertEquals(cpu.getRegister(register), batchEngine.getRegister(instance, register));
+      }
+      for (int y = 0; y < 32; y++) {
+        assertEquals(screens[instance].getRow(y), batchEngine.getRow(instance, y));
+      }
+    }
+  }
+
+  @Test
+  public void testUnknownInstructionFaultsOnlyThatInstance() {
+    BatchEngine batchEngine = new BatchEngine(2);
+    batchEngine.load(0, new byte[] {(byte) 0xE0, (byte) 0x9E});
+    batchEngine.load(1, new byte[] {0x60, 0x05});
+
+    batchEngine.step();
+
+    assertTrue(batchEngine.isFaulted(0));
+    assertFalse(batchEngine.isFaulted(1));
+    assertEquals(0x05, batchEngine.getRegister(1, 0));
+
+    batchEngine.step();
+
+    assertEquals(0x202, batchEngine.getProgramCounter(0));
+  }
+
+  @Test
+  public void testProgramCounterWrapsAtEndOfMemory() {
+    // Jump to 0xFFC, V0 := 0x07, then skip over 0x000 since V0 is 0x07
+    byte[] rom = new byte[Memory.SIZE - CPU.INITIAL_PC];
+    rom[0] = 0x1F;
+    rom[1] = (byte) 0xFC;
+    rom[0xFFC - CPU.INITIAL_PC] = 0x60;
+    rom[0xFFD - CPU.INITIAL_PC] = 0x07;
+    rom[0xFFE - CPU.INITIAL_PC] = 0x30;
+    rom[0xFFF - CPU.INITIAL_PC] = 0x07;
+    BatchEngine batchEngine = new BatchEngine(1);
+    batchEngine.load(0, rom);
+
+    batchEngine.step();
+    batchEngine.step();
+    assertEquals(0xFFE, batchEngine.getProgramCounter(0));
+
+    batchEngine.step();
+    assertFalse(batchEngine.isFaulted(0));
+    assertEquals(0x002, batchEngine.getProgramCounter(0));
+  }
+
+  private byte[] loadRom(String romName) throws IOException {
+    InputStream romStream = getClass().getClassLoader().getResourceAsStream(romName);
+    return Objects.requireNonNull(Objects.requireNonNull(romStream).readAllBytes());
+  }
+}
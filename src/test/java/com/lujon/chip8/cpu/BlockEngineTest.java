@@ -0,0 +1,180 @@
+package com.lujon.chip8.cpu;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import com.lujon.chip8.memory.Memory;
+import com.lujon.chip8.screen.Screen;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Objects;
+import org.junit.Test;
+
+public class BlockEngineTest {
+
+  @Test
+  public void testBcTestRomMatchesInterpreter() throws IOException {
+    assertRomMatchesInterpreter("bc_test.ch8");
+  }
+
+  @Test
+  public void testOpcodeTestRomMatchesInterpreter() throws IOException {
+    assertRomMatchesInterpreter("test_opcode.ch8");
+  }
+
+  @Test
+  public void testIbmLogoRomMatchesInterpreter() throws IOException {
+    assertRomMatchesInterpreter("ibm-logo.ch8");
+  }
+
+  @Test
+  public void testLoopWithSkipsMatchesInterpreter() {
+    byte[] program = {
+        0x60, (byte) 0xF0, // 200: LD V0, F0
+        0x61, 0x03, // 202: LD V1, 3
+        0x70, 0x01, // 204: ADD V0, 1
+        (byte) 0x82, 0x14, // 206: ADD V2, V1
+        (byte) 0x8F, 0x25, // 208: SUB VF, V2
+        (byte) 0x83, 0x0E, // 20A: SHL V3
+        (byte) 0x84, 0x06, // 20C: SHR V4
+        (byte) 0xA3, 0x00, // 20E: LD I, 300
+        (byte) 0xF0, 0x1E, // 210: ADD I, V0
+        0x30, 0x00, // 212: SE V0, 0
+        0x12, 0x04, // 214: JP 204
+        (byte) 0xF3, 0x55, // 216: LD [I], V3
+        0x41, 0x03, // 218: SNE V1, 3
+        0x12, 0x04 // 21A: JP 204
+    };
+
+    // Slices of every length up to a few passes, so that every way of stopping is covered
+    for (int sliceLength = 1; sliceLength < 40; sliceLength++) {
+      assertProgramMatchesInterpreter(program, sliceLength);
+    }
+  }
+
+  @Test
+  public void testBlockAtEndOfMemoryWraps() {
+    Memory memory = new Memory();
+    CPU cpu = new CPU(memory, new Screen(false));
+    BlockEngine blockEngine = new BlockEngine(cpu, memory);
+    // V0 := 0x07 at the last address, V1 := 0x08 at the first
+    memory.setByte(0xFFE, (byte) 0x60);
+    memory.setByte(0xFFF, (byte) 0x07);
+    memory.setByte(0x000, (byte) 0x61);
+    memory.setByte(0x001, (byte) 0x08);
+    cpu.setProgramCounter(0xFFE);
+
+    blockEngine.execute(2);
+
+    assertEquals(0x07, cpu.getRegister(0x0));
+    assertEquals(0x08, cpu.getRegister(0x1));
+    assertEquals(0x002, cpu.getProgramCounter());
+  }
+
+  @Test
+  public void testBlockAtLastAddressFaultsLikeInterpreter() {
+    // Jump to 0xFFF, whose instruction takes its second byte from address 0x000
+    byte[] program = {0x1F, (byte) 0xFF};
+
+    Memory interpreterMemory = new Memory();
+    interpreterMemory.init(program);
+    CPU interpreterCpu = new CPU(interpreterMemory, new Screen(false));
+    RuntimeException interpreterFault = faultOf(() -> interpreterCpu.execute(2));
+
+    Memory blockMemory = new Memory();
+    blockMemory.init(program);
+    CPU blockCpu = new CPU(blockMemory, new Screen(false));
+    BlockEngine blockEngine = new BlockEngine(blockCpu, blockMemory);
+    RuntimeException blockFault = faultOf(() -> blockEngine.execute(2));
+
+    assertNotNull(interpreterFault);
+    assertEquals(interpreterFault.getClass(), blockFault.getClass());
+    assertEquals(interpreterFault.getMessage(), blockFault.getMessage());
+  }
+
+  @Test
+  public void testModifiedBlockIsCompiledAgain() {
+    Memory memory = new Memory();
+    // V0 := 0x01, V1 := 0x02, jump back to 0x200
+    memory.init(new byte[] {0x60, 0x01, 0x61, 0x02, 0x12, 0x00});
+    CPU cpu = new CPU(memory, new Screen(false));
+    BlockEngine blockEngine = new BlockEngine(cpu, memory);
+
+    blockEngine.execute(3);
+
+    assertEquals(0x01, cpu.getRegister(0x0));
+    assertEquals(CPU.INITIAL_PC, cpu.getProgramCounter());
+
+    // Rewrite the first instruction to V0 := 0x03
+    memory.setByte(0x201, (byte) 0x03);
+
+    blockEngine.execute(1);
+
+    assertEquals(0x03, cpu.getRegister(0x0));
+  }
+
+  @Test
+  public void testPartialBlockLeavesProgramCounterAtNextInstruction() {
+    Memory memory = new Memory();
+    // V0 := 0x01, V1 := 0x02, jump back to 0x200
+    memory.init(new byte[] {0x60, 0x01, 0x61, 0x02, 0x12, 0x00});
+    CPU cpu = new CPU(memory, new Screen(false));
+    BlockEngine blockEngine = new BlockEngine(cpu, memory);
+
+    blockEngine.execute(1);
+
+    assertEquals(0x202, cpu.getProgramCounter());
+    assertEquals(0x00, cpu.getRegister(0x1));
+
+    blockEngine.execute(1);
+
+    assertEquals(0x204, cpu.getProgramCounter());
+    assertEquals(0x02, cpu.getRegister(0x1));
+  }
+
+  private void assertRomMatchesInterpreter(String romName) throws IOException {
+    InputStream romStream = Memory.class.getClassLoader().getResourceAsStream(romName);
+    byte[] rom = Objects.requireNonNull(Objects.requireNonNull(romStream).readAllBytes());
+
+    // Uneven slices make the block engine stop in the middle of blocks
+    assertProgramMatchesInterpreter(rom, 7);
+  }
+
+  private static RuntimeException faultOf(Runnable execution) {
+    try {
+      execution.run();
+      return null;
+    } catch (RuntimeException e) {
+      return e;
+    }
+  }
+
+  private void assertProgramMatchesInterpreter(byte[] program, int sliceLength) {
+    Memory interpreterMemory = new Memory();
+    interpreterMemory.init(program);
+    Screen interpreterScreen = new Screen(false);
+    CPU interpreterCpu = new CPU(interpreterMemory, interpreterScreen);
+
+    Memory blockMemory = new Memory();
+    blockMemory.init(program);
+    Screen blockScreen = new Screen(false);
+    CPU blockCpu = new CPU(blockMemory, blockScreen);
+    BlockEngine blockEngine = new BlockEngine(blockCpu, blockMemory);
+
+    for (int slice = 0; slice < 1000; slice++) {
+      interpreterCpu.execute(sliceLength);
+      blockEngine.execute(sliceLength);
+
+      assertEquals(interpreterCpu.getProgramCounter(), blockCpu.getProgramCounter());
+      assertEquals(interpreterCpu.getIndexRegister(), blockCpu.getIndexRegister());
+      for (int register = 0; register < 16; register++) {
+        assertEquals(interpreterCpu.getRegister(register), blockCpu.getRegister(register));
+      }
+    }
+
+    assertEquals(interpreterScreen.hashCode(), blockScreen.hashCode());
+    for (int address = 0x300; address < 0x304; address++) {
+      assertEquals(interpreterMemory.getByte(address), blockMemory.getByte(address));
+    }
+  }
+}
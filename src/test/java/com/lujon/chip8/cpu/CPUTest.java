@@ -6,6 +6,9 @@ import static org.junit.Assert.assertTrue;
 
 import com.lujon.chip8.memory.Memory;
 import com.lujon.chip8.screen.Screen;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Random;
 import org.junit.Test;
 
@@ -117,6 +120,27 @@ public class CPUTest {
     assertEquals(0x01, cpu.getRegister(0xF));
   }
 
+  @Test
+  public void testDrawSpriteKeepsPixelsUnderUnsetSpriteBits() {
+    Memory memory = new Memory();
+    Screen screen = new Screen(false);
+    CPU cpu = new CPU(memory, screen);
+
+    memory.setByte(0x300, (byte) 0xF0);
+    memory.setByte(0x301, (byte) 0x0F);
+
+    // Draw 0xF0 at (0, 0), then 0x0F at the same location
+    cpu.executeInstruction(new Instruction(0xA300));
+    cpu.executeInstruction(new Instruction(0xD001));
+    cpu.executeInstruction(new Instruction(0xA301));
+    cpu.executeInstruction(new Instruction(0xD001));
+
+    for (int x = 0; x < 8; x++) {
+      assertTrue(screen.getPixel(x, 0));
+    }
+    assertEquals(0x00, cpu.getRegister(0xF));
+  }
+
   @Test
   public void testSkipInstructionIfRegisterEqualToValue() {
     CPU cpu = new CPU(new Memory(), new Screen(false));
@@ -230,11 +254,41 @@ public class CPUTest {
   public void testReturnFromSubroutine() {
     CPU cpu = new CPU(new Memory(), new Screen(false));
 
-    cpu.getStack().push(0x200);
-
+    cpu.executeInstruction(new Instruction(0x2500));
     cpu.executeInstruction(new Instruction(0x00EE));
 
     assertEquals(0x200, cpu.getProgramCounter());
+    assertTrue(cpu.getStack().isEmpty());
+  }
+
+  @Test
+  public void testGetStackReturnsMostRecentAddressFirst() {
+    CPU cpu = new CPU(new Memory(), new Screen(false));
+
+    cpu.executeInstruction(new Instruction(0x2500));
+    cpu.executeInstruction(new Instruction(0x2600));
+
+    assertEquals(Arrays.asList(0x500, CPU.INITIAL_PC), new ArrayList<>(cpu.getStack()));
+
+    cpu.getStack().clear();
+
+    assertEquals(2, cpu.getStack().size());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testStackOverflow() {
+    CPU cpu = new CPU(new Memory(), new Screen(false));
+
+    for (int i = 0; i <= CPU.STACK_SIZE; i++) {
+      cpu.executeInstruction(new Instruction(0x2500));
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testStackUnderflow() {
+    CPU cpu = new CPU(new Memory(), new Screen(false));
+
+    cpu.executeInstruction(new Instruction(0x00EE));
   }
 
   @Test
@@ -513,9 +567,9 @@ public class CPUTest {
     assertEquals(0x105, cpu.getProgramCounter());
   }
 
-  private static class RandomNumberGeneratorStub extends Random {
+  private static class RandomNumberGeneratorStub extends RandomNumberGenerator {
     @Override
-    public int nextInt(int bound) {
+    public int nextByte() {
       return 123;
     }
   }
@@ -530,6 +584,16 @@ public class CPUTest {
     assertEquals(123 & 0xF, cpu.getRegister(0x0));
   }
 
+  @Test
+  public void testRandomNumbersMatchJavaUtilRandom() {
+    RandomNumberGenerator randomNumberGenerator = new RandomNumberGenerator(42);
+    Random random = new Random(42);
+
+    for (int i = 0; i < 1000; i++) {
+      assertEquals(random.nextInt(256), randomNumberGenerator.nextByte());
+    }
+  }
+
   @Test
   public void testSetDelayTimer() {
     CPU cpu = new CPU(new Memory(), new Screen(false), new RandomNumberGeneratorStub());
@@ -543,6 +607,24 @@ public class CPUTest {
     assertEquals(0x05, cpu.getDelayTimer());
   }
 
+  @Test
+  public void testTickTimersCountsDelayTimerDownToZero() {
+    CPU cpu = new CPU(new Memory(), new Screen(false));
+
+    // Set delay timer to 0x02
+    cpu.executeInstruction(new Instruction(0x6002));
+    cpu.executeInstruction(new Instruction(0xF015));
+
+    cpu.tickTimers();
+
+    assertEquals(0x01, cpu.getDelayTimer());
+
+    cpu.tickTimers();
+    cpu.tickTimers();
+
+    assertEquals(0x00, cpu.getDelayTimer());
+  }
+
   @Test
   public void testLoadDelayTimer() {
     CPU cpu = new CPU(new Memory(), new Screen(false), new RandomNumberGeneratorStub());
@@ -558,4 +640,129 @@ public class CPUTest {
 
     assertEquals(0x05, cpu.getRegister(0x1));
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testCurrentAddressIsOnlyPublishedWhileTurnedOn() {
+    Memory memory = new Memory();
+    // V0 := 0x01, V1 := 0x02, V2 := 0x03
+    memory.init(new byte[] {0x60, 0x01, 0x61, 0x02, 0x62, 0x03});
+    CPU cpu = new CPU(memory, new Screen(false));
+
+    cpu.execute(1);
+    assertEquals(CPU.INITIAL_PC, cpu.getCurrentAddress());
+
+    cpu.setPublishingCurrentAddress(true);
+    cpu.execute(1);
+    assertEquals(0x202, cpu.getCurrentAddress());
+
+    cpu.setPublishingCurrentAddress(false);
+    cpu.execute(1);
+    assertEquals(0x202, cpu.getCurrentAddress());
+  }
+
+  @Test
+  public void testProgramCounterWrapsAtEndOfMemory() {
+    Memory memory = new Memory();
+    CPU cpu = new CPU(memory, new Screen(false));
+    // V0 := 0x07 at the last address, V1 := 0x08 at the first
+    memory.setByte(0xFFE, (byte) 0x60);
+    memory.setByte(0xFFF, (byte) 0x07);
+    memory.setByte(0x000, (byte) 0x61);
+    memory.setByte(0x001, (byte) 0x08);
+    cpu.setProgramCounter(0xFFE);
+
+    cpu.execute(2);
+
+    assertEquals(0x07, cpu.getRegister(0x0));
+    assertEquals(0x08, cpu.getRegister(0x1));
+    assertEquals(0x002, cpu.getProgramCounter());
+
+    // Skipping over the last instruction wraps too
+    cpu.executeInstruction(new Instruction(0x6100));
+    cpu.setProgramCounter(0xFFE);
+    cpu.executeInstruction(new Instruction(0x3100));
+    assertEquals(0x000, cpu.getProgramCounter());
+  }
+
+  @Test
+  public void testModifiedInstructionIsDecodedAgain() {
+    Memory memory = new Memory();
+    // V0 := 0x01, jump back to 0x200
+    memory.init(new byte[] {0x60, 0x01, 0x12, 0x00});
+    CPU cpu = new CPU(memory, new Screen(false));
+
+    cpu.executeInstructionFromMemory();
+
+    assertEquals(0x01, cpu.getRegister(0x0));
+
+    // Rewrite the first instruction to V0 := 0x02
+    memory.setByte(0x201, (byte) 0x02);
+
+    cpu.executeInstructionFromMemory();
+    cpu.executeInstructionFromMemory();
+
+    assertEquals(0x02, cpu.getRegister(0x0));
+  }
+
+  @Test
+  public void testInstructionOverwrittenByProgramIsDecodedAgain() {
+    Memory memory = new Memory();
+    // V0 := 0x01, V1 := 0xFF, I := 0x201, BCD V1 (writes 2, 5, 5 at 0x201-0x203), jump to 0x200
+    memory.init(new byte[] {0x60, 0x01, 0x61, (byte) 0xFF, (byte) 0xA2, 0x01, (byte) 0xF1, 0x33,
+        0x12, 0x00});
+    CPU cpu = new CPU(memory, new Screen(false));
+
+    for (int i = 0; i < 5; i++) {
+      cpu.executeInstructionFromMemory();
+    }
+
+    assertEquals(0x01, cpu.getRegister(0x0));
+
+    // 0x200 now holds V0 := 0x02
+    cpu.executeInstructionFromMemory();
+
+    assertEquals(0x02, cpu.getRegister(0x0));
+  }
+
+  @Test
+  public void testExecuteInstructionFromMemoryDoesNotAllocate() {
+    Memory memory = new Memory();
+    memory.init(new byte[] {
+        0x60, 0x01,              // 0x200: V0 := 0x01
+        0x71, 0x01,              // 0x202: V1 += 0x01
+        (byte) 0x80, 0x14,       // 0x204: V0 += V1
+        (byte) 0xA3, 0x00,       // 0x206: I := 0x300
+        (byte) 0xF1, 0x33,       // 0x208: BCD V1
+        (byte) 0xD0, 0x15,       // 0x20A: draw 5 rows at V0, V1
+        0x22, 0x14,              // 0x20C: call 0x214
+        (byte) 0xC2, 0x0F,       // 0x20E: V2 := random & 0x0F
+        0x12, 0x02,              // 0x210: jump to 0x202
+        0x00, 0x00,
+        0x00, (byte) 0xEE        // 0x214: return
+    });
+    CPU cpu = new CPU(memory, new Screen(false));
+
+    com.sun.management.ThreadMXBean threadMXBean =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long threadId = Thread.currentThread().getId();
+
+    int numInstructions = 1_000_000;
+
+    for (int i = 0; i < numInstructions; i++) {
+      cpu.executeInstructionFromMemory();
+    }
+
+    threadMXBean.getThreadAllocatedBytes(threadId);
+    long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+
+    for (int i = 0; i < numInstructions; i++) {
+      cpu.executeInstructionFromMemory();
+    }
+
+    long allocatedAfter = threadMXBean.getThreadAllocatedBytes(threadId);
+
+    // The JIT may allocate a few bytes once when it deoptimizes, but even one allocation in a
+    // thousand instructions adds up to far more than this
+    assertTrue(allocatedAfter - allocatedBefore < 1024);
+  }
+}
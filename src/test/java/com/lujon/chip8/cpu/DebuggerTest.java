@@ -0,0 +1,156 @@
+package com.lujon.chip8.cpu;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.lujon.chip8.Chip8Emulator;
+import com.lujon.chip8.memory.Memory;
+import com.lujon.chip8.screen.Screen;
+import org.junit.Test;
+
+public class DebuggerTest {
+
+  private static final byte[] PROGRAM = new byte[] {
+      0x60, 0x05, // 200: LD V0, 5
+      (byte) 0xA3, 0x00, // 202: LD I, 300
+      (byte) 0xF2, 0x55, // 204: LD [I], V2
+      (byte) 0xD0, 0x03, // 206: DRW V0, V0, 3
+      0x70, 0x01, // 208: ADD V0, 1
+      0x12, 0x08 // 20A: JP 208
+  };
+
+  @Test
+  public void testBreakpointStopsBeforeInstruction() {
+    Chip8Emulator chip8Emulator = createEmulator();
+    Debugger debugger = chip8Emulator.getDebugger();
+    debugger.addBreakpoint(0x206);
+
+    chip8Emulator.runFixedCycles(100);
+
+    assertTrue(debugger.isPaused());
+    assertEquals(DebugBreak.Reason.BREAKPOINT, debugger.getLastBreak().getReason());
+    assertEquals(0x206, debugger.getLastBreak().getProgramCounter());
+
+    // Paused, so nothing runs until resumed
+    chip8Emulator.runFixedCycles(100);
+    assertEquals(0x206, debugger.getLastBreak().getProgramCounter());
+
+    debugger.resume();
+    chip8Emulator.runFixedCycles(1);
+
+    assertFalse(debugger.isPaused());
+  }
+
+  @Test
+  public void testWatchpointsStopBeforeAccess() {
+    Chip8Emulator chip8Emulator = createEmulator();
+    Debugger debugger = chip8Emulator.getDebugger();
+    debugger.addWatchpoint(0x302, Debugger.WatchType.WRITE);
+
+    chip8Emulator.runFixedCycles(100);
+
+    assertEquals(DebugBreak.Reason.WRITE_WATCHPOINT, debugger.getLastBreak().getReason());
+    assertEquals(0x204, debugger.getLastBreak().getProgramCounter());
+    assertEquals(0x302, debugger.getLastBreak().getAddress());
+
+    debugger.removeWatchpoint(0x302);
+    debugger.addWatchpoint(0x302, Debugger.WatchType.READ);
+    debugger.resume();
+    chip8Emulator.runFixedCycles(100);
+
+    assertEquals(DebugBreak.Reason.READ_WATCHPOINT, debugger.getLastBreak().getReason());
+    assertEquals(0x206, debugger.getLastBreak().getProgramCounter());
+  }
+
+  @Test
+  public void testReadWatchpointIgnoresClippedSpriteRows() {
+    byte[] program = new byte[] {
+        0x60, 0x1E, // 200: LD V0, 30
+        (byte) 0xA3, 0x00, // 202: LD I, 300
+        (byte) 0xD0, 0x03, // 204: DRW V0, V0, 3
+        0x12, 0x06 // 206: JP 206
+    };
+
+    // Only rows 30 and 31 are drawn, so the third sprite byte is never read
+    Chip8Emulator clippedEmulator = createEmulator(program);
+    clippedEmulator.getDebugger().addWatchpoint(0x302, Debugger.WatchType.READ);
+    clippedEmulator.runFixedCycles(100);
+
+    assertNull(clippedEmulator.getDebugger().getLastBreak());
+
+    Chip8Emulator drawnEmulator = createEmulator(program);
+    drawnEmulator.getDebugger().addWatchpoint(0x301, Debugger.WatchType.READ);
+    drawnEmulator.runFixedCycles(100);
+
+    assertEquals(DebugBreak.Reason.READ_WATCHPOINT,
+        drawnEmulator.getDebugger().getLastBreak().getReason());
+    assertEquals(0x204, drawnEmulator.getDebugger().getLastBreak().getProgramCounter());
+  }
+
+  @Test
+  public void testRegisterBreakpointStopsWhenValueIsReached() {
+    Chip8Emulator chip8Emulator = createEmulator();
+    Debugger debugger = chip8Emulator.getDebugger();
+    debugger.addRegisterBreakpoint(0, 10);
+
+    chip8Emulator.runFixedCycles(100);
+
+    assertEquals(DebugBreak.Reason.CONDITION, debugger.getLastBreak().getReason());
+    assertEquals(0x20A, debugger.getLastBreak().getProgramCounter());
+  }
+
+  @Test
+  public void testRunUntilCondition() {
+    Chip8Emulator chip8Emulator = createEmulator();
+
+    DebugBreak debugBreak = chip8Emulator.runUntil(cpu -> cpu.getRegister(0) == 20, 10, 1000);
+
+    assertEquals(DebugBreak.Reason.CONDITION, debugBreak.getReason());
+    assertFalse(chip8Emulator.getDebugger().isArmed());
+
+    assertNull(chip8Emulator.runUntil(cpu -> false, 10, 100));
+  }
+
+  @Test
+  public void testPausedDebuggerStopsFrames() {
+    Memory memory = new Memory();
+    memory.init(new byte[] {0x60, 0x05, (byte) 0xF0, 0x15, 0x12, 0x04});
+    Chip8Emulator chip8Emulator = new Chip8Emulator(memory, new Screen(false));
+    chip8Emulator.getDebugger().addBreakpoint(0x204);
+
+    chip8Emulator.runFrame(10);
+    long stateDigest = chip8Emulator.getStateDigest();
+    chip8Emulator.runFrame(10);
+
+    // Neither instructions nor timer ticks happen while paused
+    assertEquals(stateDigest, chip8Emulator.getStateDigest());
+  }
+
+  @Test
+  public void testRunUntilLeavesFramesPaused() {
+    Chip8Emulator chip8Emulator = createEmulator();
+    chip8Emulator.runUntil(cpu -> cpu.getRegister(0) == 20, 10, 1000);
+    long stateDigest = chip8Emulator.getStateDigest();
+
+    // The condition is gone, but the break it hit holds frames until resumed
+    chip8Emulator.runFrame(10);
+    assertEquals(stateDigest, chip8Emulator.getStateDigest());
+
+    chip8Emulator.getDebugger().resume();
+    chip8Emulator.runFrame(10);
+    assertNotEquals(stateDigest, chip8Emulator.getStateDigest());
+  }
+
+  private static Chip8Emulator createEmulator() {
+    return createEmulator(PROGRAM);
+  }
+
+  private static Chip8Emulator createEmulator(byte[] program) {
+    Memory memory = new Memory();
+    memory.init(program);
+    return new Chip8Emulator(memory, new Screen(false), true);
+  }
+}
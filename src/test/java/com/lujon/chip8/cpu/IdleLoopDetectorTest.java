@@ -0,0 +1,77 @@
+package com.lujon.chip8.cpu;
+
+import static org.junit.Assert.assertEquals;
+
+import com.lujon.chip8.memory.Memory;
+import com.lujon.chip8.screen.Screen;
+import org.junit.Test;
+
+public class IdleLoopDetectorTest {
+
+  @Test
+  public void testJumpToSelfIsSkipped() {
+    CPU cpu = createCPU(new byte[] {0x12, 0x00});
+    IdleLoopDetector idleLoopDetector = new IdleLoopDetector(cpu);
+
+    assertEquals(1000, idleLoopDetector.fastForward(1000));
+    assertEquals(0x200, cpu.getProgramCounter());
+  }
+
+  @Test
+  public void testDelayTimerLoopIsSkippedUntilTimerRunsOut() {
+    CPU cpu = createCPU(new byte[] {
+        0x60, 0x02, // 200: LD V0, 2
+        (byte) 0xF0, 0x15, // 202: LD DT, V0
+        (byte) 0xF1, 0x07, // 204: LD V1, DT
+        0x31, 0x00, // 206: SE V1, 0
+        0x12, 0x04, // 208: JP 204
+        0x12, 0x0A // 20A: JP 20A
+    });
+    IdleLoopDetector idleLoopDetector = new IdleLoopDetector(cpu);
+    cpu.execute(2);
+
+    assertEquals(100, idleLoopDetector.fastForward(100));
+    // 100 instructions are 33 passes through the loop and one more instruction, whichever of them
+    // were skipped
+    assertEquals(0x206, cpu.getProgramCounter());
+    assertEquals(2, cpu.getRegister(1));
+
+    cpu.tickTimers();
+    cpu.tickTimers();
+    cpu.execute(1);
+
+    // The timer ran out, so the loop exits to a jump to itself, which is not where probing started
+    assertEquals(8, idleLoopDetector.fastForward(100));
+    assertEquals(0x20A, cpu.getProgramCounter());
+    assertEquals(100, idleLoopDetector.fastForward(100));
+  }
+
+  @Test
+  public void testCountingLoopIsNotSkipped() {
+    CPU cpu = createCPU(new byte[] {
+        0x70, 0x01, // 200: ADD V0, 1
+        0x12, 0x00 // 202: JP 200
+    });
+    IdleLoopDetector idleLoopDetector = new IdleLoopDetector(cpu);
+
+    assertEquals(4, idleLoopDetector.fastForward(100));
+    assertEquals(2, cpu.getRegister(0));
+  }
+
+  @Test
+  public void testLoopWithSideEffectsIsNotSkipped() {
+    CPU cpu = createCPU(new byte[] {
+        (byte) 0xD0, 0x01, // 200: DRW V0, V0, 1
+        0x12, 0x00 // 202: JP 200
+    });
+    IdleLoopDetector idleLoopDetector = new IdleLoopDetector(cpu);
+
+    assertEquals(1, idleLoopDetector.fastForward(100));
+  }
+
+  private static CPU createCPU(byte[] program) {
+    Memory memory = new Memory();
+    memory.init(program);
+    return new CPU(memory, new Screen(false));
+  }
+}
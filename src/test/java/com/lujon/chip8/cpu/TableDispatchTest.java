@@ -0,0 +1,77 @@
+package com.lujon.chip8.cpu;
+
+import static org.junit.Assert.assertEquals;
+
+import com.lujon.chip8.memory.Memory;
+import com.lujon.chip8.screen.Screen;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Objects;
+import org.junit.Test;
+
+public class TableDispatchTest {
+
+  @Test
+  public void testBcTestRomMatchesSwitchDispatch() throws IOException {
+    assertRomMatchesSwitchDispatch("bc_test.ch8");
+  }
+
+  @Test
+  public void testOpcodeTestRomMatchesSwitchDispatch() throws IOException {
+    assertRomMatchesSwitchDispatch("test_opcode.ch8");
+  }
+
+  @Test
+  public void testIbmLogoRomMatchesSwitchDispatch() throws IOException {
+    assertRomMatchesSwitchDispatch("ibm-logo.ch8");
+  }
+
+  @Test
+  public void testSubtractRegisterYfromXWithBorrow() {
+    CPU cpu = new CPU(new Memory(), new Screen(false), new RandomNumberGenerator(), Dispatch.TABLE);
+
+    cpu.executeInstruction(new Instruction(0x6002));
+    cpu.executeInstruction(new Instruction(0x6105));
+    cpu.executeInstruction(new Instruction(0x8015));
+
+    assertEquals(0xFD, cpu.getRegister(0));
+    assertEquals(0x00, cpu.getRegister(0xF));
+  }
+
+  @Test(expected = RuntimeException.class)
+  public void testUnknownInstructionIsNotImplemented() {
+    CPU cpu = new CPU(new Memory(), new Screen(false), new RandomNumberGenerator(), Dispatch.TABLE);
+
+    cpu.executeInstruction(new Instruction(0xF0FF));
+  }
+
+  private void assertRomMatchesSwitchDispatch(String romName) throws IOException {
+    Screen switchScreen = new Screen(false);
+    CPU switchCpu =
+        new CPU(loadRom(romName), switchScreen, new RandomNumberGenerator(1), Dispatch.SWITCH);
+
+    Screen tableScreen = new Screen(false);
+    CPU tableCpu =
+        new CPU(loadRom(romName), tableScreen, new RandomNumberGenerator(1), Dispatch.TABLE);
+
+    for (int cycle = 0; cycle < 5000; cycle++) {
+      switchCpu.executeInstructionFromMemory();
+      tableCpu.executeInstructionFromMemory();
+
+      assertEquals(switchCpu.getProgramCounter(), tableCpu.getProgramCounter());
+      assertEquals(switchCpu.getIndexRegister(), tableCpu.getIndexRegister());
+      for (int register = 0; register < 16; register++) {
+        assertEquals(switchCpu.getRegister(register), tableCpu.getRegister(register));
+      }
+    }
+
+    assertEquals(switchScreen.hashCode(), tableScreen.hashCode());
+  }
+
+  private Memory loadRom(String romName) throws IOException {
+    Memory memory = new Memory();
+    InputStream romStream = memory.getClass().getClassLoader().getResourceAsStream(romName);
+    memory.init(Objects.requireNonNull(Objects.requireNonNull(romStream).readAllBytes()));
+    return memory;
+  }
+}
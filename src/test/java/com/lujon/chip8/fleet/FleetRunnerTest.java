@@ -0,0 +1,74 @@
+package com.lujon.chip8.fleet;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.lujon.chip8.Chip8Emulator;
+import com.lujon.chip8.StopCondition;
+import com.lujon.chip8.cpu.RandomNumberGenerator;
+import com.lujon.chip8.memory.Memory;
+import com.lujon.chip8.screen.Screen;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Objects;
+import org.junit.Test;
+
+public class FleetRunnerTest {
+
+  @Test
+  public void testResultsMatchSerialRuns() throws IOException, InterruptedException {
+    byte[] rom = loadRom("test_opcode.ch8");
+    List<FleetJob> jobs = FleetJob.withSeeds("test_opcode", rom, 100, 16);
+
+    List<FleetResult> results;
+    try (FleetRunner fleetRunner = new FleetRunner(4)) {
+      results = fleetRunner.run(jobs, 10, StopCondition.afterFrames(100));
+    }
+
+    assertEquals(jobs.size(), results.size());
+
+    for (FleetResult result : results) {
+      assertTrue(result.isSuccessful());
+
+      Memory memory = new Memory();
+      memory.init(rom);
+      Screen screen = new Screen(false);
+      Chip8Emulator chip8Emulator =
+          new Chip8Emulator(memory, screen, new RandomNumberGenerator(result.getJob().getSeed()));
+      chip8Emulator.runHeadless(10, StopCondition.afterFrames(100));
+
+      long[] framebuffer = new long[screen.getHeight()];
+      for (int y = 0; y < framebuffer.length; y++) {
+        framebuffer[y] = screen.getRow(y);
+      }
+
+      assertEquals(1000, result.getRunReport().getNumInstructions());
+      assertEquals(chip8Emulator.getStateDigest(), result.getStateDigest());
+      assertArrayEquals(framebuffer, result.getFramebuffer());
+    }
+  }
+
+  @Test
+  public void testFailingJobDoesNotStopOthers() throws IOException, InterruptedException {
+    FleetJob brokenJob = new FleetJob("broken", new byte[] {0x00, 0x00}, 0);
+    FleetJob ibmLogoJob = new FleetJob("ibm-logo", loadRom("ibm-logo.ch8"), 0);
+
+    List<FleetResult> results;
+    try (FleetRunner fleetRunner = new FleetRunner(2)) {
+      results = fleetRunner.run(List.of(brokenJob, ibmLogoJob), 10,
+          StopCondition.afterInstructions(20));
+    }
+
+    assertFalse(results.get(0).isSuccessful());
+    assertTrue(results.get(1).isSuccessful());
+    assertEquals(20, results.get(1).getRunReport().getNumInstructions());
+  }
+
+  private byte[] loadRom(String romName) throws IOException {
+    InputStream romStream = getClass().getClassLoader().getResourceAsStream(romName);
+    return Objects.requireNonNull(Objects.requireNonNull(romStream).readAllBytes());
+  }
+}
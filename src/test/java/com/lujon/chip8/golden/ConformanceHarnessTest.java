@@ -0,0 +1,88 @@
+package com.lujon.chip8.golden;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.lujon.chip8.memory.Memory;
+import com.lujon.chip8.rom.RomLibrary;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Objects;
+import org.junit.Test;
+
+public class ConformanceHarnessTest {
+
+  @Test
+  public void testBundledRomsMatchGoldenFile() throws Exception {
+    List<GoldenCase> goldenCases =
+        ConformanceHarness.readGoldenFile(resourcePath("golden-frames.txt"));
+
+    List<GoldenResult> results;
+    try (ConformanceHarness harness = createHarness()) {
+      results = harness.check(goldenCases);
+    }
+
+    assertEquals(goldenCases.size(), results.size());
+    for (GoldenResult result : results) {
+      assertTrue(result.toString(), result.isPassed());
+    }
+  }
+
+  @Test
+  public void testMismatchesAndMissingRomsFail() throws Exception {
+    List<GoldenCase> goldenCases = List.of(
+        new GoldenCase("ibm-logo.ch8", 20, 0, 0x1234),
+        new GoldenCase("missing.ch8", 20, 0, 0));
+
+    List<GoldenResult> results;
+    try (ConformanceHarness harness = createHarness()) {
+      results = harness.check(goldenCases);
+    }
+
+    assertFalse(results.get(0).isPassed());
+    assertNull(results.get(0).getError());
+    assertFalse(results.get(1).isPassed());
+    assertNotNull(results.get(1).getError());
+  }
+
+  @Test
+  public void testRecordedCasesPass() throws Exception {
+    List<GoldenCase> goldenCases = List.of(
+        new GoldenCase("test_opcode.ch8", 500, 0, 0),
+        new GoldenCase("bc_test.ch8", 500, 0, 0));
+
+    try (ConformanceHarness harness = createHarness()) {
+      List<GoldenCase> recordedCases = harness.record(goldenCases);
+
+      for (GoldenResult result : harness.check(recordedCases)) {
+        assertTrue(result.toString(), result.isPassed());
+      }
+    }
+  }
+
+  @Test
+  public void testGoldenCaseLineRoundTrip() {
+    GoldenCase goldenCase = new GoldenCase("bc_test.ch8", 2000, 7, 0xfedcba9876543210L);
+
+    GoldenCase parsedCase = GoldenCase.parse(goldenCase.toString());
+
+    assertEquals(goldenCase.toString(), parsedCase.toString());
+    assertEquals(0xfedcba9876543210L, parsedCase.getExpectedScreenDigest());
+  }
+
+  private static ConformanceHarness createHarness() throws IOException, URISyntaxException {
+    // The bundled ROMs all live next to this one
+    return new ConformanceHarness(new RomLibrary(resourcePath("bc_test.ch8").getParent(), 1));
+  }
+
+  private static Path resourcePath(String name) throws URISyntaxException {
+    return Paths.get(Objects.requireNonNull(Memory.class.getClassLoader().getResource(name))
+        .toURI());
+  }
+}
@@ -0,0 +1,146 @@
+package com.lujon.chip8.memory;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import com.lujon.chip8.Chip8Emulator;
+import com.lujon.chip8.screen.Screen;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import org.junit.Test;
+
+public class MemoryTest {
+
+  @Test
+  public void testInitLoadsFontAndProgram() {
+    Memory memory = new Memory();
+
+    memory.init(new byte[] {0x12, 0x34});
+
+    assertEquals((byte) 0xF0, memory.getByte(Memory.FONT_START_ADDRESS));
+    assertEquals(0x12, memory.getByte(0x200));
+    assertEquals(0x34, memory.getByte(0x201));
+  }
+
+  @Test
+  public void testForkDoesNotShareWrites() {
+    Memory memory = new Memory();
+    memory.setByte(0x300, (byte) 0x01);
+
+    Memory fork = memory.fork();
+
+    assertEquals(0x01, fork.getByte(0x300));
+
+    fork.setByte(0x300, (byte) 0x02);
+    memory.setByte(0x301, (byte) 0x03);
+
+    assertEquals(0x01, memory.getByte(0x300));
+    assertEquals(0x02, fork.getByte(0x300));
+    assertEquals(0x03, memory.getByte(0x301));
+    assertEquals(0x00, fork.getByte(0x301));
+  }
+
+  @Test
+  public void testRestoreSnapshot() {
+    Memory memory = new Memory();
+    memory.setByte(0x300, (byte) 0x01);
+
+    MemorySnapshot snapshot = memory.snapshot();
+    memory.setByte(0x300, (byte) 0x02);
+
+    assertEquals(0x01, snapshot.getByte(0x300));
+
+    memory.restore(snapshot);
+
+    assertEquals(0x01, memory.getByte(0x300));
+
+    // Writing after a restore must not change the snapshot
+    memory.setByte(0x300, (byte) 0x04);
+
+    assertEquals(0x01, snapshot.getByte(0x300));
+  }
+
+  @Test
+  public void testRestoreNotifiesWriteListeners() {
+    Memory memory = new Memory();
+    MemorySnapshot snapshot = memory.snapshot();
+    int[] writtenLength = new int[1];
+    memory.addWriteListener((address, length) -> writtenLength[0] = length);
+
+    memory.restore(snapshot);
+
+    assertEquals(Memory.SIZE, writtenLength[0]);
+  }
+
+  @Test
+  public void testAddressesWrapAround() {
+    Memory memory = new Memory();
+
+    memory.setByte(Memory.SIZE + 0x123, (byte) 0x45);
+
+    assertEquals(0x45, memory.getByte(0x123));
+    assertEquals(0x45, memory.getByte(-Memory.SIZE + 0x123));
+  }
+
+  @Test
+  public void testBulkAccessWrapsAroundAndNotifiesOncePerRange() {
+    Memory memory = new Memory();
+    StringBuilder writes = new StringBuilder();
+    memory.addWriteListener((address, length) -> writes.append(address).append('+')
+        .append(length).append(' '));
+
+    memory.writeBytes(Memory.SIZE - 2, new byte[] {1, 2, 3, 4}, 0, 4);
+
+    byte[] read = new byte[4];
+    memory.readBytes(Memory.SIZE - 2, read, 0, 4);
+
+    assertArrayEquals(new byte[] {1, 2, 3, 4}, read);
+    assertEquals(3, memory.getByte(0));
+    assertEquals("4094+2 0+2 ", writes.toString());
+  }
+
+  @Test
+  public void testDirectBackendBehavesLikeHeapBackend() {
+    Memory memory = new Memory(new DirectMemoryBackend());
+    memory.init(new byte[] {0x12, 0x34});
+    memory.setByte(0x300, (byte) 0x01);
+
+    MemorySnapshot snapshot = memory.snapshot();
+    Memory fork = memory.fork();
+    memory.setByte(0x300, (byte) 0x02);
+
+    assertEquals(0x01, snapshot.getByte(0x300));
+    assertEquals(0x01, fork.getByte(0x300));
+    assertEquals(0x34, fork.getByte(0x201));
+
+    memory.restore(snapshot);
+
+    assertEquals(0x01, memory.getByte(0x300));
+  }
+
+  @Test
+  public void testDirectBackendIsVisibleThroughBuffer() {
+    ByteBuffer sharedBuffer = ByteBuffer.allocateDirect(Memory.SIZE);
+    Memory memory = new Memory(new DirectMemoryBackend(sharedBuffer));
+
+    memory.setByte(0x300, (byte) 0x7F);
+
+    assertEquals(0x7F, sharedBuffer.get(0x300));
+  }
+
+  @Test
+  public void testEmulatorRunsOnDirectBackend() throws IOException {
+    Memory memory = new Memory(new DirectMemoryBackend());
+    InputStream romStream = memory.getClass().getClassLoader().getResourceAsStream("ibm-logo.ch8");
+    memory.init(Objects.requireNonNull(Objects.requireNonNull(romStream).readAllBytes()));
+
+    Screen screen = new Screen(false);
+    Chip8Emulator chip8Emulator = new Chip8Emulator(memory, screen);
+
+    chip8Emulator.runFixedCycles(20);
+
+    assertEquals(1999623313, screen.hashCode());
+  }
+}
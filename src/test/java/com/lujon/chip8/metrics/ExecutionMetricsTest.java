@@ -0,0 +1,90 @@
+package com.lujon.chip8.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import com.lujon.chip8.Chip8Emulator;
+import com.lujon.chip8.cpu.OpcodeFamily;
+import com.lujon.chip8.memory.Memory;
+import com.lujon.chip8.screen.Screen;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.Objects;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.junit.Test;
+
+public class ExecutionMetricsTest {
+
+  @Test
+  public void testCountsInstructionsPerFamily() throws IOException {
+    Screen screen = new Screen(false);
+    Chip8Emulator chip8Emulator = new Chip8Emulator(loadRom("ibm-logo.ch8"), screen);
+    ExecutionMetrics metrics = chip8Emulator.enableMetrics();
+
+    chip8Emulator.runFixedCycles(20);
+
+    assertEquals(1999623313, screen.hashCode());
+    assertEquals(20, metrics.getTotalInstructions());
+    assertEquals(1, metrics.getInstructionCount(OpcodeFamily.CLS));
+    assertEquals(6, metrics.getInstructionCount(OpcodeFamily.DRW));
+    assertEquals(6, metrics.getDrawSpriteCount());
+    assertEquals(0.3, metrics.getDrawInstructionRatio(), 1e-9);
+  }
+
+  @Test
+  public void testCountsInstructionsWithIgnoredLowNibble() {
+    // The CPU ignores the low nibble of 5xy0 and 9xy0 and the middle nibble of 00E0
+    Memory memory = new Memory();
+    memory.init(new byte[] {0x50, 0x11, 0x00, 0x00, (byte) 0x90, 0x11, 0x01, (byte) 0xE0});
+    Chip8Emulator chip8Emulator = new Chip8Emulator(memory, new Screen(false));
+    ExecutionMetrics metrics = chip8Emulator.enableMetrics();
+
+    chip8Emulator.runFixedCycles(3);
+
+    assertEquals(3, metrics.getTotalInstructions());
+    assertEquals(1, metrics.getInstructionCount(OpcodeFamily.SE_VX_VY));
+    assertEquals(1, metrics.getInstructionCount(OpcodeFamily.SNE_VX_VY));
+    assertEquals(1, metrics.getInstructionCount(OpcodeFamily.CLS));
+  }
+
+  @Test
+  public void testDisabledMetricsStopCounting() throws IOException {
+    Chip8Emulator chip8Emulator = new Chip8Emulator(loadRom("ibm-logo.ch8"), new Screen(false));
+    ExecutionMetrics metrics = chip8Emulator.enableMetrics();
+
+    chip8Emulator.runFixedCycles(10);
+    chip8Emulator.disableMetrics();
+    chip8Emulator.runFixedCycles(10);
+
+    assertEquals(10, metrics.getTotalInstructions());
+  }
+
+  @Test
+  public void testPublishedAsMBean() throws IOException, JMException {
+    Chip8Emulator chip8Emulator = new Chip8Emulator(loadRom("ibm-logo.ch8"), new Screen(false));
+    ExecutionMetrics metrics = chip8Emulator.enableMetrics();
+    chip8Emulator.runFixedCycles(20);
+
+    ObjectName objectName = metrics.register("ibm-logo");
+    try {
+      MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+
+      assertEquals(20L, mBeanServer.getAttribute(objectName, "TotalInstructions"));
+      assertEquals(6L, mBeanServer.getAttribute(objectName, "DrawSpriteCount"));
+    } finally {
+      ExecutionMetrics.unregister(objectName);
+    }
+
+    assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(objectName));
+  }
+
+  private Memory loadRom(String romName) throws IOException {
+    Memory memory = new Memory();
+    InputStream romStream = memory.getClass().getClassLoader().getResourceAsStream(romName);
+    memory.init(Objects.requireNonNull(Objects.requireNonNull(romStream).readAllBytes()));
+    return memory;
+  }
+}
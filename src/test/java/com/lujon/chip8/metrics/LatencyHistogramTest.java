@@ -0,0 +1,54 @@
+package com.lujon.chip8.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+  @Test
+  public void testSmallValuesAreExact() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int value = 1; value <= 4; value++) {
+      histogram.record(value);
+    }
+
+    assertEquals(4, histogram.getCount());
+    assertEquals(2, histogram.getValueAtPercentile(50));
+    assertEquals(4, histogram.getValueAtPercentile(100));
+    assertEquals(2.5, histogram.getMean(), 0);
+  }
+
+  @Test
+  public void testLargeValuesAreWithinOneBucket() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 0; i < 99; i++) {
+      histogram.record(1_000);
+    }
+    histogram.record(5_000_000);
+
+    long p50 = histogram.getValueAtPercentile(50);
+    assertTrue(p50 >= 1_000 && p50 <= 1_125);
+    assertEquals(5_000_000, histogram.getValueAtPercentile(100));
+    assertEquals(5_000_000, histogram.getMax());
+  }
+
+  @Test
+  public void testBucketsCoverEveryValue() {
+    for (long value : new long[] {0, 7, 8, 9, 15, 16, 17, 1023, 1024, Long.MAX_VALUE}) {
+      int bucket = LatencyHistogram.bucketOf(value);
+
+      assertTrue(value <= LatencyHistogram.highestValueOf(bucket));
+      assertTrue(bucket == 0 || value > LatencyHistogram.highestValueOf(bucket - 1));
+    }
+  }
+
+  @Test
+  public void testEmptyHistogram() {
+    LatencyHistogram histogram = new LatencyHistogram();
+
+    assertEquals(0, histogram.getValueAtPercentile(99));
+    assertEquals(0, histogram.getMean(), 0);
+  }
+}
@@ -0,0 +1,75 @@
+package com.lujon.chip8.profiler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.lujon.chip8.Chip8Emulator;
+import com.lujon.chip8.StopCondition;
+import com.lujon.chip8.memory.Memory;
+import com.lujon.chip8.screen.Screen;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class ProfileTest {
+
+  @Test
+  public void testCountingAttributesInstructionsToCallStacks() {
+    Memory memory = new Memory();
+    memory.init(new byte[] {
+        0x22, 0x06, // 200: CALL 206
+        0x12, 0x02, // 202: JP 202
+        0x00, 0x00,
+        0x22, 0x0C, // 206: CALL 20C
+        0x00, (byte) 0xEE, // 208: RET
+        0x00, 0x00,
+        0x60, 0x01, // 20C: LD V0, 1
+        0x00, (byte) 0xEE // 20E: RET
+    });
+    Chip8Emulator chip8Emulator = new Chip8Emulator(memory, new Screen(false));
+
+    Profile profile = chip8Emulator.startProfiling();
+    chip8Emulator.runFixedCycles(10);
+    chip8Emulator.stopProfiling();
+    chip8Emulator.runFixedCycles(10);
+
+    assertEquals(10, profile.getTotalCount());
+    assertEquals(5, profile.getAddressCount(0x202));
+    assertEquals(1, profile.getAddressCount(0x20C));
+    assertEquals(0x202, (int) profile.getHottestAddresses(1).get(0));
+    assertEquals("main 6\nmain;sub_206 2\nmain;sub_206;sub_20c 2\n", profile.toCollapsedStacks());
+  }
+
+  @Test
+  public void testSamplingFindsHotLoop() throws IOException {
+    Memory memory = new Memory();
+    InputStream romStream = memory.getClass().getClassLoader().getResourceAsStream("ibm-logo.ch8");
+    memory.init(Objects.requireNonNull(Objects.requireNonNull(romStream).readAllBytes()));
+    Chip8Emulator chip8Emulator = new Chip8Emulator(memory, new Screen(false));
+
+    SamplingProfiler samplingProfiler = chip8Emulator.startSampling(1, TimeUnit.MILLISECONDS);
+    chip8Emulator.runHeadless(1000, StopCondition.afterWallTime(200, TimeUnit.MILLISECONDS));
+    samplingProfiler.close();
+
+    Profile profile = samplingProfiler.getProfile();
+    List<Integer> hottestAddresses = profile.getHottestAddresses(1);
+
+    assertTrue(profile.getTotalCount() > 10);
+    assertEquals(0x228, (int) hottestAddresses.get(0));
+    assertEquals(0, profile.getAddressCount(0x22A));
+    assertTrue(profile.toCollapsedStacks().startsWith("main "));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testProfilingAndMetricsAreExclusive() {
+    Memory memory = new Memory();
+    memory.init(new byte[0]);
+    Chip8Emulator chip8Emulator = new Chip8Emulator(memory, new Screen(false));
+
+    chip8Emulator.enableMetrics();
+    chip8Emulator.startProfiling();
+  }
+}
@@ -0,0 +1,100 @@
+package com.lujon.chip8.rom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import com.lujon.chip8.Chip8Emulator;
+import com.lujon.chip8.cpu.DecodedProgram;
+import com.lujon.chip8.memory.Memory;
+import com.lujon.chip8.screen.Screen;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RomLibraryTest {
+
+  private Path romDirectory;
+
+  @Before
+  public void createRomDirectory() throws IOException {
+    romDirectory = Files.createTempDirectory("chip8-roms");
+    copyRom("ibm-logo.ch8", "ibm-logo.ch8");
+    copyRom("ibm-logo.ch8", "ibm-logo-copy.ch8");
+    copyRom("bc_test.ch8", "bc_test.ch8");
+    Files.write(romDirectory.resolve("notes.txt"), new byte[] {1, 2, 3});
+  }
+
+  @After
+  public void deleteRomDirectory() throws IOException {
+    try (Stream<Path> files = Files.list(romDirectory)) {
+      for (Path file : (Iterable<Path>) files::iterator) {
+        Files.delete(file);
+      }
+    }
+    Files.delete(romDirectory);
+  }
+
+  @Test
+  public void testIndexesRomsByNameAndContentHash() throws IOException {
+    RomLibrary romLibrary = new RomLibrary(romDirectory, 4);
+
+    assertEquals(3, romLibrary.getRoms().size());
+    assertFalse(romLibrary.findByName("notes.txt").isPresent());
+
+    Rom ibmLogo = romLibrary.findByName("ibm-logo.ch8").orElseThrow();
+    Rom ibmLogoCopy = romLibrary.findByName("ibm-logo-copy.ch8").orElseThrow();
+
+    assertEquals(ibmLogo.getContentHash(), ibmLogoCopy.getContentHash());
+    assertEquals(readRom("ibm-logo.ch8").length, ibmLogo.getData().remaining());
+    assertEquals(ibmLogo.getContentHash(),
+        romLibrary.findByContentHash(ibmLogo.getContentHash()).orElseThrow().getContentHash());
+  }
+
+  @Test
+  public void testDecodedProgramsAreCachedByContent() throws IOException {
+    RomLibrary romLibrary = new RomLibrary(romDirectory, 1);
+    Rom ibmLogo = romLibrary.findByName("ibm-logo.ch8").orElseThrow();
+    Rom ibmLogoCopy = romLibrary.findByName("ibm-logo-copy.ch8").orElseThrow();
+    Rom bcTest = romLibrary.findByName("bc_test.ch8").orElseThrow();
+
+    DecodedProgram decodedProgram = romLibrary.getDecodedProgram(ibmLogo);
+
+    assertSame(decodedProgram, romLibrary.getDecodedProgram(ibmLogoCopy));
+
+    // Only one program fits in the cache
+    romLibrary.getDecodedProgram(bcTest);
+
+    assertNotSame(decodedProgram, romLibrary.getDecodedProgram(ibmLogo));
+  }
+
+  @Test
+  public void testPreloadedRomRunsLikeLoadedRom() throws IOException {
+    RomLibrary romLibrary = new RomLibrary(romDirectory, 4);
+    Rom ibmLogo = romLibrary.findByName("ibm-logo.ch8").orElseThrow();
+
+    Screen screen = new Screen(false);
+    Chip8Emulator chip8Emulator = new Chip8Emulator(romLibrary.load(ibmLogo), screen);
+    chip8Emulator.preload(romLibrary.getDecodedProgram(ibmLogo));
+
+    chip8Emulator.runFixedCycles(20);
+
+    assertEquals(1999623313, screen.hashCode());
+  }
+
+  private void copyRom(String resourceName, String fileName) throws IOException {
+    Files.write(romDirectory.resolve(fileName), readRom(resourceName));
+  }
+
+  private byte[] readRom(String resourceName) throws IOException {
+    InputStream romStream = Memory.class.getClassLoader().getResourceAsStream(resourceName);
+    return Objects.requireNonNull(Objects.requireNonNull(romStream).readAllBytes());
+  }
+}
@@ -0,0 +1,147 @@
+package com.lujon.chip8.screen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import org.junit.Test;
+
+public class FrameCodecTest {
+
+  @Test
+  public void testDecodedFramesMatchScreen() {
+    Screen screen = new Screen(false);
+    FrameEncoder frameEncoder = new FrameEncoder(30);
+    FrameDecoder frameDecoder = new FrameDecoder();
+    ByteBuffer buffer = ByteBuffer.allocate(FrameEncoder.MAX_FRAME_SIZE);
+    Random random = new Random(1);
+
+    for (int frame = 0; frame < 200; frame++) {
+      drawRandomSprites(screen, random);
+
+      buffer.clear();
+      frameEncoder.encode(screen, buffer);
+      buffer.flip();
+      frameDecoder.decode(buffer);
+
+      assertFalse(buffer.hasRemaining());
+      for (int y = 0; y < screen.getHeight(); y++) {
+        assertEquals("frame " + frame + " row " + y, screen.getRow(y), frameDecoder.getRow(y));
+      }
+    }
+  }
+
+  @Test
+  public void testKeyframesAreWrittenAtInterval() {
+    Screen screen = new Screen(false);
+    FrameEncoder frameEncoder = new FrameEncoder(3);
+    ByteBuffer buffer = ByteBuffer.allocate(FrameEncoder.MAX_FRAME_SIZE);
+
+    boolean[] keyframes = new boolean[7];
+    for (int frame = 0; frame < keyframes.length; frame++) {
+      buffer.clear();
+      keyframes[frame] = frameEncoder.encode(screen, buffer);
+    }
+
+    assertTrue(keyframes[0]);
+    assertFalse(keyframes[1]);
+    assertFalse(keyframes[2]);
+    assertTrue(keyframes[3]);
+    assertTrue(keyframes[6]);
+
+    frameEncoder.requestKeyframe();
+    buffer.clear();
+    assertTrue(frameEncoder.encode(screen, buffer));
+  }
+
+  @Test
+  public void testUnchangedFrameTakesTwoBytes() {
+    Screen screen = new Screen(false);
+    screen.drawSpriteRow(10, 5, (byte) 0xFF);
+    FrameEncoder frameEncoder = new FrameEncoder(100);
+    ByteBuffer buffer = ByteBuffer.allocate(FrameEncoder.MAX_FRAME_SIZE);
+
+    frameEncoder.encode(screen, buffer);
+    // One run of one row, with the sprite spanning two bytes
+    assertEquals(2 + 2 + 3, buffer.position());
+
+    buffer.clear();
+    frameEncoder.encode(screen, buffer);
+    assertEquals(2, buffer.position());
+  }
+
+  @Test
+  public void testWorstCaseFitsMaxFrameSize() {
+    Screen screen = new Screen(false);
+    for (int y = 0; y < screen.getHeight(); y += 2) {
+      for (int x = 0; x < screen.getWidth(); x += 8) {
+        screen.drawSpriteRow(x, y, (byte) 0x81);
+      }
+    }
+    ByteBuffer buffer = ByteBuffer.allocate(FrameEncoder.MAX_FRAME_SIZE);
+
+    new FrameEncoder(1).encode(screen, buffer);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testDeltaBeforeKeyframeIsRejected() {
+    FrameDecoder frameDecoder = new FrameDecoder();
+
+    frameDecoder.decode(ByteBuffer.wrap(new byte[] {FrameEncoder.DELTA, 0}));
+  }
+
+  @Test
+  public void testEncodingDoesNotAllocate() {
+    Screen screen = new Screen(false);
+    FrameEncoder frameEncoder = new FrameEncoder(60);
+    FrameDecoder frameDecoder = new FrameDecoder();
+    ByteBuffer buffer = ByteBuffer.allocateDirect(FrameEncoder.MAX_FRAME_SIZE);
+    Random random = new Random(2);
+
+    com.sun.management.ThreadMXBean threadMXBean =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long threadId = Thread.currentThread().getId();
+
+    int numFrames = 100_000;
+    for (int frame = 0; frame < numFrames; frame++) {
+      encodeAndDecode(screen, random, frameEncoder, frameDecoder, buffer);
+    }
+
+    threadMXBean.getThreadAllocatedBytes(threadId);
+    long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+
+    for (int frame = 0; frame < numFrames; frame++) {
+      encodeAndDecode(screen, random, frameEncoder, frameDecoder, buffer);
+    }
+
+    long allocatedAfter = threadMXBean.getThreadAllocatedBytes(threadId);
+
+    assertEquals(0, (allocatedAfter - allocatedBefore) / numFrames);
+  }
+
+  private static void encodeAndDecode(Screen screen, Random random, FrameEncoder frameEncoder,
+      FrameDecoder frameDecoder, ByteBuffer buffer) {
+    screen.drawSpriteRow(random.nextInt(64), random.nextInt(32), (byte) random.nextInt(256));
+    buffer.clear();
+    frameEncoder.encode(screen, buffer);
+    buffer.flip();
+    frameDecoder.decode(buffer);
+  }
+
+  private static void drawRandomSprites(Screen screen, Random random) {
+    int numSprites = random.nextInt(4);
+    for (int i = 0; i < numSprites; i++) {
+      int x = random.nextInt(screen.getWidth());
+      int y = random.nextInt(screen.getHeight());
+      for (int row = 0; row < 5 && y + row < screen.getHeight(); row++) {
+        screen.drawSpriteRow(x, y + row, (byte) random.nextInt(256));
+      }
+    }
+    if (random.nextInt(20) == 0) {
+      screen.clear();
+    }
+  }
+}
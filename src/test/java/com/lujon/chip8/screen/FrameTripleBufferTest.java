@@ -0,0 +1,80 @@
+package com.lujon.chip8.screen;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+
+public class FrameTripleBufferTest {
+
+  @Test
+  public void testAcquireReturnsLatestFrame() {
+    FrameTripleBuffer frames = new FrameTripleBuffer();
+    assertFalse(frames.hasNewFrame());
+    assertArrayEquals(new long[Screen.HEIGHT], frames.acquireLatest());
+
+    frames.publish(frame(1));
+    frames.publish(frame(2));
+    frames.publish(frame(3));
+    assertTrue(frames.hasNewFrame());
+
+    long[] latest = frames.acquireLatest();
+    assertArrayEquals(frame(3), latest);
+    assertFalse(frames.hasNewFrame());
+    assertSame(latest, frames.acquireLatest());
+
+    frames.publish(frame(4));
+    assertArrayEquals(frame(3), latest);
+    assertArrayEquals(frame(4), frames.acquireLatest());
+  }
+
+  @Test
+  public void testFramesAreNeverTornAcrossThreads() throws InterruptedException {
+    FrameTripleBuffer frames = new FrameTripleBuffer();
+    int numFrames = 200_000;
+    AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    Thread writer = new Thread(() -> {
+      long[] rows = new long[Screen.HEIGHT];
+      for (int i = 1; i <= numFrames; i++) {
+        Arrays.fill(rows, i);
+        frames.publish(rows);
+      }
+    });
+    Thread reader = new Thread(() -> {
+      try {
+        long last = 0;
+        while (last < numFrames) {
+          long[] rows = frames.acquireLatest();
+          for (long row : rows) {
+            assertEquals(rows[0], row);
+          }
+          assertTrue(rows[0] >= last);
+          last = rows[0];
+        }
+      } catch (Throwable t) {
+        failure.set(t);
+      }
+    });
+
+    writer.start();
+    reader.start();
+    writer.join();
+    reader.join(10_000);
+    assertFalse(reader.isAlive());
+    if (failure.get() != null) {
+      throw new AssertionError(failure.get());
+    }
+  }
+
+  private static long[] frame(long value) {
+    long[] rows = new long[Screen.HEIGHT];
+    Arrays.fill(rows, value);
+    return rows;
+  }
+}
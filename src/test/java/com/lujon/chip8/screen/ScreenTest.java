@@ -0,0 +1,164 @@
+package com.lujon.chip8.screen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+
+public class ScreenTest {
+
+  @Test
+  public void testSetPixel() {
+    Screen screen = new Screen(false);
+
+    screen.setPixel(0, 0, true);
+    screen.setPixel(63, 31, true);
+
+    assertTrue(screen.getPixel(0, 0));
+    assertTrue(screen.getPixel(63, 31));
+    assertFalse(screen.getPixel(1, 0));
+
+    screen.setPixel(63, 31, false);
+
+    assertFalse(screen.getPixel(63, 31));
+  }
+
+  @Test
+  public void testDrawSpriteRowXorsPixels() {
+    Screen screen = new Screen(false);
+
+    assertFalse(screen.drawSpriteRow(4, 2, (byte) 0xF0));
+    assertFalse(screen.drawSpriteRow(4, 2, (byte) 0x0F));
+
+    for (int x = 4; x < 12; x++) {
+      assertTrue(screen.getPixel(x, 2));
+    }
+    assertFalse(screen.getPixel(3, 2));
+    assertFalse(screen.getPixel(12, 2));
+
+    assertTrue(screen.drawSpriteRow(4, 2, (byte) 0x81));
+
+    assertFalse(screen.getPixel(4, 2));
+    assertTrue(screen.getPixel(5, 2));
+    assertFalse(screen.getPixel(11, 2));
+  }
+
+  @Test
+  public void testDrawSpriteRowClipsAtRightEdge() {
+    Screen screen = new Screen(false);
+
+    screen.drawSpriteRow(60, 0, (byte) 0xFF);
+
+    for (int x = 60; x < 64; x++) {
+      assertTrue(screen.getPixel(x, 0));
+    }
+    assertFalse(screen.getPixel(0, 0));
+    assertFalse(screen.getPixel(0, 1));
+  }
+
+  @Test
+  public void testClear() {
+    Screen screen = new Screen(false);
+
+    screen.drawSpriteRow(0, 0, (byte) 0xFF);
+    screen.clear();
+
+    assertFalse(screen.getPixel(0, 0));
+    assertEquals(new Screen(false), screen);
+  }
+
+  @Test
+  public void testHashCodeMatchesBooleanPixels() {
+    Screen screen = new Screen(false);
+    boolean[][] pixels = new boolean[32][64];
+
+    screen.setPixel(3, 7, true);
+    pixels[7][3] = true;
+    screen.setPixel(63, 31, true);
+    pixels[31][63] = true;
+
+    assertEquals(Arrays.deepHashCode(pixels), screen.hashCode());
+  }
+
+  @Test
+  public void testHashCodeMatchesBooleanPixelsForRandomScreens() {
+    Random random = new Random(3);
+
+    for (int i = 0; i < 20; i++) {
+      Screen screen = new Screen(false);
+      boolean[][] pixels = new boolean[32][64];
+      for (int pixel = 0; pixel < 300; pixel++) {
+        int x = random.nextInt(64);
+        int y = random.nextInt(32);
+        screen.setPixel(x, y, true);
+        pixels[y][x] = true;
+      }
+
+      assertEquals(Arrays.deepHashCode(pixels), screen.hashCode());
+    }
+  }
+
+  @Test
+  public void testDigestIsUpdatedAsRowsChange() {
+    Screen screen = new Screen(false);
+    long blankDigest = screen.getDigest();
+
+    screen.drawSpriteRow(10, 4, (byte) 0xA5);
+    screen.setPixel(0, 31, true);
+    long drawnDigest = screen.getDigest();
+
+    assertNotEquals(blankDigest, drawnDigest);
+    assertEquals(Screen.digestOf(screen.copyRows()), drawnDigest);
+
+    // The same pixels in another row give another digest
+    Screen otherScreen = new Screen(false);
+    otherScreen.drawSpriteRow(10, 5, (byte) 0xA5);
+    otherScreen.setPixel(0, 31, true);
+
+    assertNotEquals(drawnDigest, otherScreen.getDigest());
+    assertNotEquals(screen, otherScreen);
+
+    screen.drawSpriteRow(10, 4, (byte) 0xA5);
+    screen.setPixel(0, 31, false);
+
+    assertEquals(blankDigest, screen.getDigest());
+
+    screen.setRows(otherScreen.copyRows());
+
+    assertEquals(otherScreen.getDigest(), screen.getDigest());
+    assertEquals(otherScreen, screen);
+  }
+
+  @Test
+  public void testDirtyRowsAreTrackedUntilDrawn() {
+    Screen screen = new Screen(false);
+
+    assertFalse(screen.isDirty());
+
+    screen.drawSpriteRow(0, 5, (byte) 0x80);
+    screen.setPixel(0, 9, true);
+
+    assertTrue(screen.isDirty());
+    assertEquals(5, screen.getDirtyRowStart());
+    assertEquals(10, screen.getDirtyRowEnd());
+
+    screen.draw();
+
+    assertFalse(screen.isDirty());
+  }
+
+  @Test
+  public void testUnchangedPixelsDoNotMakeScreenDirty() {
+    Screen screen = new Screen(false);
+
+    screen.setPixel(0, 0, false);
+    screen.drawSpriteRow(0, 0, (byte) 0x00);
+    screen.clear();
+
+    assertFalse(screen.isDirty());
+  }
+}